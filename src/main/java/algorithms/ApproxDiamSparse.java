@@ -1,9 +1,9 @@
 package algorithms;
 
-import org.jgrapht.Graph;
+import algorithms.CompressedSparseRow.CSRBFS;
+import algorithms.CompressedSparseRow.CSRGraph;
+import algorithms.CompressedSparseRow.VertexIndexer;
 import org.jgrapht.graph.AbstractBaseGraph;
-import org.jgrapht.graph.EdgeReversedGraph;
-import org.jgrapht.traverse.BreadthFirstIterator;
 
 import java.util.*;
 
@@ -19,7 +19,9 @@ public class ApproxDiamSparse<V,E> extends Diameter_Algorithm<V, E> {
     }
 
     public Integer run(int minDegree) {
-        Graph<V,E> reverse = new EdgeReversedGraph<>(super.getGraph());
+        VertexIndexer<V> indexer = new VertexIndexer<>(super.getGraph());
+        CSRGraph csr = CSRGraph.fromGraph(super.getGraph(), indexer);
+        CSRGraph reverse = csr.transpose();
         Set<V> H = new HashSet<>();
         int maxEcc = 0;
 
@@ -32,39 +34,37 @@ public class ApproxDiamSparse<V,E> extends Diameter_Algorithm<V, E> {
 
         // Compute BFS from every vertex in H
         for (V v : H) {
-            BFS<V,E> bfs = new BFS<>(super.getGraph(), v);
+            BFS<V,E> bfs = new BFS<>(csr, indexer, v);
             maxEcc = Math.max(maxEcc, bfs.getEcc());
             numBFS++;
         }
 
-        // Create a new graph to find vertex furthest from minimum degree set
-        Graph <V,E> extendedGraph = new EdgeReversedGraph<V,E>((AbstractBaseGraph<V,E>) g.clone());
-        V r = (V) new Integer(121891731);
-        extendedGraph.addVertex(r);
+        // Find vertex furthest from minimum degree set, with a BFS on the reverse graph that starts from all of it
+        int[] sources = new int[H.size()];
+        int i = 0;
         for (V u : H) {
-            extendedGraph.addEdge(r ,u);
+            sources[i++] = indexer.indexOf(u);
         }
-
-        // Find vertex furthest from hitting set
-        BFS<V,E> bfs = new BFS<>(extendedGraph, r);
+        CSRBFS bfs = new CSRBFS(reverse, sources);
         numBFS++;
-        V w = bfs.getFurthest();
-        int dist = bfs.getDepth(w) - 1;
+        V w = indexer.vertexAt(bfs.getFurthest());
+        int dist = bfs.getEcc();
 
         // Compute BFS_out from w
-        BFS<V,E> bfsOut = new BFS<>(super.getGraph(), w);
+        CSRBFS bfsOut = new CSRBFS(csr, indexer.indexOf(w));
         numBFS++;
         maxEcc = Math.max(maxEcc, bfsOut.getEcc());
 
         // Calculate bfsRadius and perform BFS from every vertex with distance < radius from w
         int bfsRadius = Math.min(h + 1, dist);
-        BreadthFirstIterator<V,E> bfsIterator = new BreadthFirstIterator<>(super.getGraph(), w);
-        V currentVertex = bfsIterator.next();
-        while (bfsIterator.hasNext() && bfsIterator.getDepth(currentVertex) <= bfsRadius) {
-            BFS<V,E> bfsIn = new BFS<>(reverse, currentVertex);
+        for (i = 0; i < bfsOut.getNumReached(); i++) {
+            int currentVertex = bfsOut.getReached(i);
+            if (bfsOut.getDepth(currentVertex) > bfsRadius) {
+                break;
+            }
+            CSRBFS bfsIn = new CSRBFS(reverse, currentVertex);
             maxEcc = Math.max(maxEcc, bfsIn.getEcc());
             numBFS++;
-            currentVertex = bfsIterator.next();
         }
 
         return maxEcc;
@@ -1,39 +1,93 @@
 package algorithms;
 
+import algorithms.CompressedSparseRow.CSRBFS;
+import algorithms.CompressedSparseRow.CSRGraph;
+import algorithms.CompressedSparseRow.VertexIndexer;
 import org.jgrapht.Graph;
 
 import org.jgrapht.traverse.BreadthFirstIterator;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class BFS<V,E> {
     private final Graph<V,E> graph;
     private final V start;
     private final V furthest;
     private final BreadthFirstIterator<V,E> iterator;
+    private final CSRBFS csrBfs;
+    private final VertexIndexer<V> indexer;
+    /** The vertices in the order they were visited, if the BFS was performed by <var>iterator</var>. */
+    private final List<V> order;
 
 
     BFS(Graph<V,E> graph, V start) {
         this.graph = graph;
         this.start = start;
+        this.csrBfs = null;
+        this.indexer = null;
 
         iterator = new BreadthFirstIterator<>(graph, start);
+        order = new ArrayList<>();
 
         V currentFurthest = start;
         while (iterator.hasNext()) {
             currentFurthest = iterator.next();
+            order.add(currentFurthest);
         }
         furthest = currentFurthest;
     }
 
+    /**
+     * Performs the BFS on a CSR snapshot of the graph, whose vertices are numbered by <var>indexer</var>.
+     */
+    BFS(CSRGraph graph, VertexIndexer<V> indexer, V start) {
+        this.graph = null;
+        this.start = start;
+        this.iterator = null;
+        this.indexer = indexer;
+        this.order = null;
+
+        csrBfs = new CSRBFS(graph, indexer.indexOf(start));
+        furthest = indexer.vertexAt(csrBfs.getFurthest());
+    }
+
     public V getFurthest() {
         return furthest;
     }
 
     public int getDepth(V t) {
-        return iterator.getDepth(t);
+        if (csrBfs == null) {
+            return iterator.getDepth(t);
+        }
+
+        int depth = csrBfs.getDepth(indexer.indexOf(t));
+        if (depth == -1) {
+            // the same exception BreadthFirstIterator throws for vertices it has not seen
+            throw new NullPointerException("The vertex " + t + " was not reached.");
+        }
+        return depth;
+    }
+
+    /**
+     * @return the number of vertices reached, which are the only ones {@link #getDepth(Object)} accepts
+     */
+    public int getNumReached() {
+        return csrBfs == null ? order.size() : csrBfs.getNumReached();
+    }
+
+    /**
+     * @return the <var>i</var>-th vertex visited
+     */
+    public V getReached(int i) {
+        return csrBfs == null ? order.get(i) : indexer.vertexAt(csrBfs.getReached(i));
     }
 
     public int getEcc() {
-        return iterator.getDepth(furthest);
+        if (csrBfs == null) {
+            return iterator.getDepth(furthest);
+        }
+        return csrBfs.getEcc();
     }
 
     private V getNthParent(V v, int n) {
@@ -45,6 +99,9 @@ public class BFS<V,E> {
     }
 
     public V getMid(V t) {
-        return getNthParent(t, getEcc() / 2);
+        if (csrBfs == null) {
+            return getNthParent(t, getEcc() / 2);
+        }
+        return indexer.vertexAt(csrBfs.getMid(indexer.indexOf(t)));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+package algorithms;
+
+/**
+ * The dense array pass of AllCCUpperBound in {@link ExactSumSweepEngine}, with a SIMD implementation on the
+ * incubating Vector API and a scalar one; both give the same results. The SIMD one is only compiled in the
+ * <code>vector</code> Maven profile (<code>mvn -Pvector</code>), and used when the JVM was started with
+ * <code>--add-modules jdk.incubator.vector</code>; otherwise the scalar one is used.
+ */
+public final class BoundKernels {
+    /** The SIMD implementation, or null if the kernels run on the scalar fallback. */
+    private static final Kernels VECTOR_KERNELS = loadVectorKernels();
+
+    /**
+     * The kernels, as implemented by <code>VectorBoundKernels</code>.
+     */
+    interface Kernels {
+        int findImprovedBounds(int[] dist, int[] eccOfComponent, int[] component, int[] bound, int[] out);
+    }
+
+    private BoundKernels() {
+    }
+
+    private static Kernels loadVectorKernels() {
+        if (Boolean.getBoolean("algorithms.scalarKernels")
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            // not referenced directly, as it is missing unless the vector profile was active
+            return (Kernels) Class.forName("algorithms.VectorBoundKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return whether the kernels run on the Vector API, instead of the scalar fallback
+     */
+    public static boolean isVectorized() {
+        return VECTOR_KERNELS != null;
+    }
+
+    /**
+     * Finds the vertices whose bound improves through the pivot of their strongly connected component:
+     * the vertices <var>v</var> such that
+     * <code><var>dist</var>[<var>v</var>] + <var>eccOfComponent</var>[<var>component</var>[<var>v</var>]] &lt; <var>bound</var>[<var>v</var>]</code>.
+     *
+     * @param out
+     *            filled with the vertices found, in increasing order; it must be as long as <var>dist</var>
+     * @return the number of vertices found
+     */
+    public static int findImprovedBounds(final int[] dist, final int[] eccOfComponent, final int[] component,
+                                         final int[] bound, final int[] out) {
+        return VECTOR_KERNELS != null ? VECTOR_KERNELS.findImprovedBounds(dist, eccOfComponent, component, bound, out)
+                : scalarFindImprovedBounds(dist, eccOfComponent, component, bound, out);
+    }
+
+    static int scalarFindImprovedBounds(final int[] dist, final int[] eccOfComponent, final int[] component,
+                                        final int[] bound, final int[] out) {
+        int count = 0;
+        for (int v = 0; v < dist.length; v++) {
+            if (dist[v] + eccOfComponent[component[v]] < bound[v]) {
+                out[count++] = v;
+            }
+        }
+        return count;
+    }
+}
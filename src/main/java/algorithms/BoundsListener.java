@@ -0,0 +1,16 @@
+package algorithms;
+
+/**
+ * Receives the bounds on the diameter certified by an algorithm while it runs, e.g. to show how they
+ * converge.
+ */
+@FunctionalInterface
+public interface BoundsListener {
+    /**
+     * Called whenever the lower or the upper bound on the diameter improves.
+     *
+     * @param lowerBound a lower bound on the diameter
+     * @param upperBound an upper bound on the diameter, or {@link Integer#MAX_VALUE} if none is certified
+     */
+    void boundsChanged(int lowerBound, int upperBound);
+}
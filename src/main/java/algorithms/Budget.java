@@ -0,0 +1,43 @@
+package algorithms;
+
+/**
+ * A limit on the running time and on the number of BFSs of an algorithm. An algorithm run with a budget
+ * stops as soon as either limit is reached, and returns the best bounds it could certify.
+ */
+public class Budget {
+    /** The budget of an algorithm that always runs to completion. */
+    public static final Budget UNLIMITED = new Budget(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private final long maxMillis;
+    private final long maxBFSs;
+
+    /**
+     * @param maxMillis the maximum running time, in milliseconds
+     * @param maxBFSs the maximum number of BFSs
+     */
+    public Budget(long maxMillis, long maxBFSs) {
+        if (maxMillis < 0 || maxBFSs < 0) {
+            throw new IllegalArgumentException("A budget cannot be negative.");
+        }
+        this.maxMillis = maxMillis;
+        this.maxBFSs = maxBFSs;
+    }
+
+    public static Budget ofMillis(long maxMillis) {
+        return new Budget(maxMillis, Long.MAX_VALUE);
+    }
+
+    public static Budget ofBFSs(long maxBFSs) {
+        return new Budget(Long.MAX_VALUE, maxBFSs);
+    }
+
+    /**
+     * @param startMillis the time the algorithm started, as returned by {@link System#currentTimeMillis()}
+     * @param numBFSs the number of BFSs performed since the algorithm started
+     * @return whether the algorithm must stop
+     */
+    public boolean isExhausted(long startMillis, long numBFSs) {
+        return numBFSs >= maxBFSs
+                || (maxMillis != Long.MAX_VALUE && System.currentTimeMillis() - startMillis >= maxMillis);
+    }
+}
@@ -0,0 +1,180 @@
+package algorithms;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A binary file of primitive values and arrays, written and read through memory-mapped regions, so that
+ * large arrays are copied in bulk instead of value by value. Values are stored in little-endian order,
+ * in the order they are written, and must be read back in the same order.
+ * <p>
+ * Arrays are mapped in chunks of at most {@link #CHUNK_BYTES} bytes, since a single mapping cannot be
+ * larger than 2GB.
+ * <p>
+ * A written file is synced when it is closed, and all its regions are unmapped then, so that it can be
+ * moved or replaced right away.
+ */
+class CheckpointFile implements Closeable {
+    private static final int CHUNK_BYTES = 1 << 28;
+    /** {@code sun.misc.Unsafe.invokeCleaner} bound to the instance, or null if it is not accessible. */
+    private static final MethodHandle UNMAP = unmapHandle();
+
+    private final FileChannel channel;
+    private final boolean write;
+    private long position;
+    /** The regions mapped so far, to be unmapped by {@link #close()}. */
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+
+    private CheckpointFile(final FileChannel channel, final boolean write) {
+        this.channel = channel;
+        this.write = write;
+    }
+
+    /**
+     * Creates (or truncates) a file to be written.
+     */
+    static CheckpointFile create(final Path file) throws IOException {
+        return new CheckpointFile(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE), true);
+    }
+
+    static CheckpointFile open(final Path file) throws IOException {
+        return new CheckpointFile(FileChannel.open(file, StandardOpenOption.READ), false);
+    }
+
+    private MappedByteBuffer map(final long bytes) throws IOException {
+        if (!write && position + bytes > channel.size()) {
+            throw new IOException("The checkpoint file is truncated.");
+        }
+        final MappedByteBuffer buffer = channel.map(write ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                position, bytes);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        regions.add(buffer);
+        position += bytes;
+        return buffer;
+    }
+
+    long readLong() throws IOException {
+        return map(Long.BYTES).getLong();
+    }
+
+    void writeInts(final int[] array) throws IOException {
+        for (int from = 0; from < array.length; ) {
+            final int length = Math.min(array.length - from, CHUNK_BYTES / Integer.BYTES);
+            final MappedByteBuffer buffer = map((long) length * Integer.BYTES);
+            buffer.asIntBuffer().put(array, from, length);
+            from += length;
+        }
+    }
+
+    void readInts(final int[] array) throws IOException {
+        for (int from = 0; from < array.length; ) {
+            final int length = Math.min(array.length - from, CHUNK_BYTES / Integer.BYTES);
+            map((long) length * Integer.BYTES).asIntBuffer().get(array, from, length);
+            from += length;
+        }
+    }
+
+    /**
+     * Writes some values in a single region: a header of scalars costs one mapping.
+     */
+    void writeLongs(final long... array) throws IOException {
+        for (int from = 0; from < array.length; ) {
+            final int length = Math.min(array.length - from, CHUNK_BYTES / Long.BYTES);
+            final MappedByteBuffer buffer = map((long) length * Long.BYTES);
+            buffer.asLongBuffer().put(array, from, length);
+            from += length;
+        }
+    }
+
+    void readLongs(final long[] array) throws IOException {
+        for (int from = 0; from < array.length; ) {
+            final int length = Math.min(array.length - from, CHUNK_BYTES / Long.BYTES);
+            map((long) length * Long.BYTES).asLongBuffer().get(array, from, length);
+            from += length;
+        }
+    }
+
+    void writeDoubles(final double[] array) throws IOException {
+        final MappedByteBuffer buffer = map((long) array.length * Double.BYTES);
+        buffer.asDoubleBuffer().put(array);
+    }
+
+    void readDoubles(final double[] array) throws IOException {
+        map((long) array.length * Double.BYTES).asDoubleBuffer().get(array);
+    }
+
+    /**
+     * Syncs the file, if it was written, and releases its regions. A sync of the channel is not bound to
+     * write what was stored through a mapping, so each region is forced before the channel, which then
+     * writes the metadata of the file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (write) {
+                for (MappedByteBuffer buffer : regions) {
+                    buffer.force();
+                }
+                channel.force(true);
+            }
+        } finally {
+            channel.close();
+            if (UNMAP != null) {
+                for (MappedByteBuffer buffer : regions) {
+                    try {
+                        UNMAP.invokeExact((ByteBuffer) buffer);
+                    } catch (Throwable e) {
+                        break;
+                    }
+                }
+            }
+            regions.clear();
+        }
+    }
+
+    /**
+     * Syncs a directory, so that a file moved into it survives a crash. Some platforms do not let a
+     * directory be opened, and there is nothing to sync then.
+     */
+    static void syncDirectory(final Path directory) throws IOException {
+        final FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (FileChannel c = channel) {
+            c.force(true);
+        }
+    }
+
+    /**
+     * Without it the regions are unmapped only when they are garbage collected, and some platforms do not
+     * let a mapped file be replaced before that.
+     */
+    private static MethodHandle unmapHandle() {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package algorithms.CompressedSparseRow;
+
+import java.util.Arrays;
+
+/**
+ * A breadth-first search over a {@link CSRGraph}, from one or more sources.
+ * The visit order, the depths and the BFS tree are kept in primitive arrays.
+ */
+public class CSRBFS {
+    /** The vertices in the order they were visited; only the first {@link #numReached} are meaningful. */
+    private final int[] queue;
+    /** The depth of every vertex, or -1 if it was not reached. */
+    private final int[] dist;
+    /** The parent of every reached vertex in the BFS tree, or -1 for the sources. */
+    private final int[] parent;
+    /** The number of reached vertices. */
+    private final int numReached;
+    /** The vertices at depth d are <code>queue[levelOffsets[d]], ..., queue[levelOffsets[d + 1] - 1]</code>. */
+    private final int[] levelOffsets;
+
+    public CSRBFS(CSRGraph graph, int start) {
+        this(graph, new int[] { start });
+    }
+
+    public CSRBFS(CSRGraph graph, int[] sources) {
+        if (sources.length == 0) {
+            throw new IllegalArgumentException("sources cannot be empty.");
+        }
+        final int n = graph.numNodes();
+        final int[] offsets = graph.offsets();
+        final int[] targets = graph.targets();
+
+        queue = new int[n];
+        dist = new int[n];
+        parent = new int[n];
+        Arrays.fill(dist, -1);
+
+        int startQ = 0, endQ = 0;
+        for (int source : sources) {
+            if (dist[source] == -1) {
+                dist[source] = 0;
+                parent[source] = -1;
+                queue[endQ++] = source;
+            }
+        }
+
+        int v, w, nextDist;
+        while (startQ < endQ) {
+            v = queue[startQ++];
+            nextDist = dist[v] + 1;
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                w = targets[i];
+                if (dist[w] == -1) {
+                    dist[w] = nextDist;
+                    parent[w] = v;
+                    queue[endQ++] = w;
+                }
+            }
+        }
+
+        numReached = endQ;
+
+        // the queue is sorted by depth, so each level is a contiguous slice of it
+        final int ecc = dist[queue[numReached - 1]];
+        levelOffsets = new int[ecc + 2];
+        for (int i = 0, d = 0; i < numReached; i++) {
+            while (d < dist[queue[i]]) {
+                levelOffsets[++d] = i;
+            }
+        }
+        levelOffsets[ecc + 1] = numReached;
+    }
+
+    /**
+     * @return the last vertex visited, which is at maximum depth
+     */
+    public int getFurthest() {
+        return queue[numReached - 1];
+    }
+
+    /**
+     * @return the depth of <var>v</var>, or -1 if <var>v</var> was not reached
+     */
+    public int getDepth(int v) {
+        return dist[v];
+    }
+
+    public int getEcc() {
+        return dist[getFurthest()];
+    }
+
+    public int getParent(int v) {
+        return parent[v];
+    }
+
+    /**
+     * Returns the ancestor of <var>t</var> that is {@link #getEcc()} / 2 levels above it.
+     */
+    public int getMid(int t) {
+        int mid = t;
+        for (int i = getEcc() / 2; i > 0; i--) {
+            mid = parent[mid];
+        }
+        return mid;
+    }
+
+    public int getNumReached() {
+        return numReached;
+    }
+
+    /**
+     * @return the position in the visit order of the first vertex at depth <var>d</var>
+     */
+    public int getLevelStart(int d) {
+        return levelOffsets[d];
+    }
+
+    /**
+     * @return the position in the visit order after the last vertex at depth <var>d</var>
+     */
+    public int getLevelEnd(int d) {
+        return levelOffsets[d + 1];
+    }
+
+    /**
+     * @return the <var>i</var>-th vertex visited
+     */
+    public int getReached(int i) {
+        return queue[i];
+    }
+}
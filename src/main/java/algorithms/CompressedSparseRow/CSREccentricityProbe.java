@@ -0,0 +1,80 @@
+package algorithms.CompressedSparseRow;
+
+import java.util.Arrays;
+
+/**
+ * Answers whether the eccentricity of a vertex of a {@link CSRGraph} is greater than a threshold,
+ * computing it exactly only if it is.
+ * The BFS of a probe stops as soon as the answer is decided: when all the reachable vertices have been
+ * visited, when a known upper bound is reached, or when the vertices still unvisited are too few to go
+ * beyond the threshold, since each of them can add at most one level.
+ * The arrays are allocated once and reused by all the probes, so an instance is not thread-safe.
+ */
+public class CSREccentricityProbe {
+    private final CSRGraph graph;
+    private final int[] queue;
+    /** The depth of every vertex, or -1 if it was not reached by the current probe. */
+    private final int[] dist;
+
+    public CSREccentricityProbe(CSRGraph graph) {
+        this.graph = graph;
+        queue = new int[graph.numNodes()];
+        dist = new int[graph.numNodes()];
+        Arrays.fill(dist, -1);
+    }
+
+    /**
+     * @param start the vertex whose eccentricity is probed
+     * @param threshold the eccentricities at most this value are not needed exactly
+     * @param upperBound an upper bound on the eccentricity of <var>start</var>
+     * @param reachable an upper bound on the number of vertices reachable from <var>start</var>
+     * @return the eccentricity of <var>start</var> if it is greater than <var>threshold</var>, or an upper
+     * bound of it that is at most <var>threshold</var> otherwise
+     */
+    public int probe(int start, int threshold, int upperBound, int reachable) {
+        final int[] offsets = graph.offsets();
+        final int[] targets = graph.targets();
+
+        int startQ = 0, endQ = 0;
+        dist[start] = 0;
+        queue[endQ++] = start;
+
+        int result = -1;
+        int v, w, nextDist, lastDist;
+        while (startQ < endQ) {
+            lastDist = dist[queue[endQ - 1]];
+            if (endQ >= reachable) {
+                // every reachable vertex is already in the queue
+                result = lastDist;
+                break;
+            }
+            if (lastDist >= upperBound) {
+                result = upperBound;
+                break;
+            }
+            if (lastDist + (reachable - endQ) <= threshold) {
+                result = lastDist + (reachable - endQ);
+                break;
+            }
+
+            v = queue[startQ++];
+            nextDist = dist[v] + 1;
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                w = targets[i];
+                if (dist[w] == -1) {
+                    dist[w] = nextDist;
+                    queue[endQ++] = w;
+                }
+            }
+        }
+        if (result == -1) {
+            result = dist[queue[endQ - 1]];
+        }
+
+        // only the visited vertices need to be cleared for the next probe
+        for (int i = 0; i < endQ; i++) {
+            dist[queue[i]] = -1;
+        }
+        return result;
+    }
+}
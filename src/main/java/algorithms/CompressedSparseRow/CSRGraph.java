@@ -0,0 +1,240 @@
+package algorithms.CompressedSparseRow;
+
+import algorithms.IndexedGraph;
+import it.unimi.dsi.webgraph.ImmutableGraph;
+import it.unimi.dsi.webgraph.NodeIterator;
+import org.jgrapht.Graph;
+import org.jgrapht.Graphs;
+
+import java.util.Collections;
+
+/**
+ * An immutable directed graph over the vertices <code>0, ..., n - 1</code>, stored in
+ * compressed sparse row form: the successors of <var>v</var> are
+ * <code>targets[offsets[v]], ..., targets[offsets[v + 1] - 1]</code>.
+ * <p>
+ * The transpose is built on the first call to {@link #transpose()}, and the two graphs
+ * then point to each other.
+ */
+public class CSRGraph implements IndexedGraph {
+    /** The largest number of arcs of a CSR graph, i.e. of elements of a java array. */
+    public static final long MAX_ARCS = Integer.MAX_VALUE - 8;
+
+    /** <code>offsets[v]</code> is the position in {@link #targets} of the first successor of <var>v</var>. */
+    private final int[] offsets;
+    /** The successors of all the vertices, one block per vertex. */
+    private final int[] targets;
+    /** The transposed graph, or {@code null} if it has not been built, yet. */
+    private CSRGraph transpose;
+
+    /**
+     * Creates a graph from its offsets and targets arrays (the arrays are not copied).
+     *
+     * @param offsets
+     *            an array of <code>n + 1</code> non-decreasing positions in <var>targets</var>
+     * @param targets
+     *            the successors of all the vertices
+     */
+    public CSRGraph(final int[] offsets, final int[] targets) {
+        if (offsets.length == 0 || offsets[0] != 0 || offsets[offsets.length - 1] != targets.length) {
+            throw new IllegalArgumentException("The offsets must start at 0 and end at the number of arcs.");
+        }
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    @Override
+    public int numNodes() {
+        return offsets.length - 1;
+    }
+
+    public int numArcs() {
+        return targets.length;
+    }
+
+    @Override
+    public int outdegree(final int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    /**
+     * @return the targets array, whose successors of <var>v</var> start at <code>offsets[v]</code>
+     */
+    @Override
+    public int[] successorArray(final int v) {
+        return targets;
+    }
+
+    @Override
+    public int successorOffset(final int v) {
+        return offsets[v];
+    }
+
+    /**
+     * @return this graph, which is never modified, so all the threads can read it
+     */
+    @Override
+    public IndexedGraph copy() {
+        return this;
+    }
+
+    /**
+     * Returns the offsets array backing this graph. It must not be modified.
+     *
+     * @return the offsets array
+     */
+    public int[] offsets() {
+        return offsets;
+    }
+
+    /**
+     * Returns the targets array backing this graph. It must not be modified.
+     *
+     * @return the targets array
+     */
+    public int[] targets() {
+        return targets;
+    }
+
+    /**
+     * Returns the transposed graph, building it on the first call.
+     *
+     * @return the graph with all the arcs reversed
+     */
+    public synchronized CSRGraph transpose() {
+        if (transpose == null) {
+            final int n = numNodes();
+            final int[] transposeOffsets = new int[n + 1];
+            for (int target : targets) {
+                transposeOffsets[target + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                transposeOffsets[v + 1] += transposeOffsets[v];
+            }
+
+            final int[] position = new int[n];
+            System.arraycopy(transposeOffsets, 0, position, 0, n);
+            final int[] transposeTargets = new int[targets.length];
+            for (int v = 0; v < n; v++) {
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    transposeTargets[position[targets[i]]++] = v;
+                }
+            }
+
+            transpose = new CSRGraph(transposeOffsets, transposeTargets);
+            transpose.transpose = this;
+        }
+        return transpose;
+    }
+
+
+    /**
+     * Builds a snapshot of a jgrapht graph, numbering the vertices with the given indexer.
+     * Undirected edges are stored in both directions.
+     *
+     * @param graph
+     *            a graph
+     * @param indexer
+     *            an indexer of the vertices of <var>graph</var>
+     * @return the snapshot of <var>graph</var>
+     */
+    public static <V, E> CSRGraph fromGraph(final Graph<V, E> graph, final VertexIndexer<V> indexer) {
+        final int n = indexer.size();
+        final int[] offsets = new int[n + 1];
+        long numArcs = 0;
+        for (int v = 0; v < n; v++) {
+            numArcs += graph.outgoingEdgesOf(indexer.vertexAt(v)).size();
+            checkNumArcs(numArcs);
+            offsets[v + 1] = (int) numArcs;
+        }
+
+        final int[] targets = new int[(int) numArcs];
+        int i = 0;
+        for (int v = 0; v < n; v++) {
+            final V vertex = indexer.vertexAt(v);
+            for (E edge : graph.outgoingEdgesOf(vertex)) {
+                targets[i++] = indexer.indexOf(Graphs.getOppositeVertex(graph, edge, vertex));
+            }
+        }
+
+        return new CSRGraph(offsets, targets);
+    }
+
+    /**
+     * Builds a snapshot of a graph whose vertices are non-negative integers, using each
+     * vertex as its own index. Integers up to the largest vertex that are not in the graph
+     * become isolated vertices.
+     *
+     * @param graph
+     *            a graph over non-negative integers
+     * @return the snapshot of <var>graph</var>
+     */
+    public static <E> CSRGraph fromIntegerGraph(final Graph<Integer, E> graph) {
+        final int n = graph.vertexSet().isEmpty() ? 0 : Collections.max(graph.vertexSet()) + 1;
+        final int[] offsets = new int[n + 1];
+        long numArcs = 0;
+        for (Integer v : graph.vertexSet()) {
+            final int outdegree = graph.outgoingEdgesOf(v).size();
+            offsets[v + 1] = outdegree;
+            numArcs += outdegree;
+        }
+        checkNumArcs(numArcs);
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        final int[] targets = new int[(int) numArcs];
+        for (Integer v : graph.vertexSet()) {
+            int i = offsets[v];
+            for (E edge : graph.outgoingEdgesOf(v)) {
+                targets[i++] = Graphs.getOppositeVertex(graph, edge, v);
+            }
+        }
+
+        return new CSRGraph(offsets, targets);
+    }
+
+    /**
+     * Builds a snapshot of an immutable graph, with a single sequential scan.
+     *
+     * @param graph
+     *            an immutable graph
+     * @return the snapshot of <var>graph</var>
+     * @throws IllegalArgumentException
+     *             if <var>graph</var> has more than {@link #MAX_ARCS} arcs; this is checked before any array is
+     *             allocated
+     */
+    public static CSRGraph fromImmutableGraph(final ImmutableGraph graph) {
+        final int n = graph.numNodes();
+        long numArcs;
+        try {
+            numArcs = graph.numArcs();
+        } catch (UnsupportedOperationException e) {
+            numArcs = 0;
+            for (NodeIterator it = graph.nodeIterator(); it.hasNext(); ) {
+                it.nextInt();
+                numArcs += it.outdegree();
+            }
+        }
+        checkNumArcs(numArcs);
+
+        final int[] offsets = new int[n + 1];
+        final int[] targets = new int[(int) numArcs];
+        int i = 0;
+        for (NodeIterator it = graph.nodeIterator(); it.hasNext(); ) {
+            final int v = it.nextInt();
+            final int outdegree = it.outdegree();
+            System.arraycopy(it.successorArray(), 0, targets, i, outdegree);
+            i += outdegree;
+            offsets[v + 1] = i;
+        }
+
+        return new CSRGraph(offsets, targets);
+    }
+
+    private static void checkNumArcs(final long numArcs) {
+        if (numArcs > MAX_ARCS) {
+            throw new IllegalArgumentException("The graph has " + numArcs + " arcs, which is more than a CSR graph can hold.");
+        }
+    }
+}
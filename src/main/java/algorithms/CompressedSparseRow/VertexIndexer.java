@@ -0,0 +1,43 @@
+package algorithms.CompressedSparseRow;
+
+import org.jgrapht.Graph;
+import org.jgrapht.util.CollectionUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Numbers the vertices of a graph with the dense indices <code>0, ..., n - 1</code>, in the
+ * order of {@link Graph#vertexSet()}.
+ */
+public class VertexIndexer<V> {
+    private final List<V> vertices;
+    private final Map<V, Integer> indices;
+
+    public VertexIndexer(Graph<V, ?> graph) {
+        vertices = new ArrayList<>(graph.vertexSet());
+        indices = CollectionUtil.newHashMapWithExpectedSize(vertices.size());
+
+        final int size = vertices.size();
+        for (int i = 0; i < size; i++) {
+            indices.put(vertices.get(i), i);
+        }
+    }
+
+    public int size() {
+        return vertices.size();
+    }
+
+    public int indexOf(V v) {
+        final Integer index = indices.get(v);
+        if (index == null) {
+            throw new IllegalArgumentException("The vertex " + v + " is not in the graph.");
+        }
+        return index;
+    }
+
+    public V vertexAt(int index) {
+        return vertices.get(index);
+    }
+}
@@ -0,0 +1,2012 @@
+/*
+ * This software includes modifications based on code originally written by Sebastiano Vigna,
+ * licensed under the terms of the GNU Lesser General Public License v2.1 or later,
+ * or the Apache Software License 2.0.
+ *
+ * Original Copyright (C) 2016-2021 Sebastiano Vigna
+ *
+ * The original LGPL v2.1 license can be found at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1-standalone.html
+ *
+ * The original Apache License 2.0 can be found at
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * The original software written by Sebastiano Vigna can be found in the class
+ * it.unimi.dsi.webgraph.algo.SumSweepDirectedDiameterRadius
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * SPDX-License-Identifier: LGPL-2.1-or-later OR Apache-2.0
+ *
+ * Modifications made by Jonathan Moiseyev (C) 2024
+ */
+
+package algorithms;
+
+import algorithms.CompressedSparseRow.CSRGraph;
+import algorithms.StrongConnectivity.SCCCondensation;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.logging.ProgressLogger;
+import org.javatuples.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The ExactSumSweep algorithm on an {@link IndexedGraph} and its transpose, with all of its state in
+ * primitive arrays indexed by vertex. {@link ExactSumSweep} and {@link ExactSumSweepForIntegerGraphs}
+ * translate their graphs to a {@link CSRGraph}, and translate the results of this engine back to their
+ * vertices; {@code ExactSumSweepForWebGraphs} reads the successor lists of an ImmutableGraph directly.
+ */
+public class ExactSumSweepEngine implements AutoCloseable {
+    /** The graph, on which all the forward BFSs are performed. */
+    private final IndexedGraph graph;
+    /** The reversed graph, on which all the backward BFSs are performed. */
+    private final IndexedGraph reverseGraph;
+    /** The strongly connected components of the graph. */
+    private final SCCCondensation scc;
+    /** The number of indices of the graph. */
+    private final int numIndices;
+    /** The number of indices that are vertices. */
+    private final int numVertices;
+
+    /** The global progress logger. */
+    private final ProgressLogger pl;
+
+    /** The number of BFSs performed at the same time. */
+    private final int parallelism;
+    /** The pool the BFSs of a batch are spread over, or null to run one BFS at a time. */
+    private final ForkJoinPool pool;
+    /** The copies of the graph and of the reversed graph read by each thread of the pool. */
+    private final ThreadLocal<IndexedGraph> graphCopies, reverseGraphCopies;
+
+    /** The kind of output requested. */
+    private final OutputLevel output;
+
+    /** The file the state is periodically saved to, or null. */
+    private Path checkpointFile;
+    /** The minimum time between two checkpoints, in milliseconds. */
+    private long checkpointInterval;
+    /** The time of the last checkpoint, in milliseconds. */
+    private long lastCheckpoint;
+    /**
+     * The points of the steps of an interrupted run, restored by {@link #resume(Path)} or left by a run
+     * that ran out of budget, or null if the next run starts from scratch.
+     */
+    private double[] resumedPoints;
+    /**
+     * The next step of the initial SumSweep heuristic: 0 before the first run, {@link #HEURISTIC_STEPS} once
+     * the heuristic is over, and in between if a run ran out of budget during it.
+     */
+    private int heuristicStep;
+    /** The vertex the initial SumSweep heuristic starts from. */
+    private int heuristicStart;
+    /** The last bounds on the diameter passed to a {@link BoundsListener}. */
+    private int notifiedLower = -1, notifiedUpper = -1;
+    /** What the run on the previous snapshot of the graph learned, or null if the next run starts from scratch. */
+    private WarmStart warmStart;
+    /** The sources of all the BFSs performed, encoded as in {@link WarmStart#getSource(int)}. */
+    private final IntArrayList sources = new IntArrayList();
+    /** The number of eccentricities each BFS in <var>sources</var> completed. */
+    private final IntArrayList sourceGains = new IntArrayList();
+
+    /** The forward eccentricity values of the vertices, or -1 if it is not known yet. */
+    private final int[] eccF;
+    /** The backward eccentricity values of the vertices, or -1 if it is not known yet. */
+    private final int[] eccB;
+
+    /**
+     * <var>toCompleteF</var>.get(<var>v</var>) is <var>True</var> if and only if
+     * the forward eccentricity of <var>v</var> is not guaranteed, yet.
+     */
+    private final BitSet toCompleteF;
+    /**
+     * <var>toCompleteB</var>.get(<var>v</var>) is <var>True</var> if and only if
+     * the backward eccentricity of <var>v</var> is not guaranteed, yet.
+     */
+    private final BitSet toCompleteB;
+
+    /** The set of vertices that can be radial vertices. */
+    private final BitSet accRadial;
+
+    /** The number of vertices in <var>toCompleteF</var> with each upper bound on the forward eccentricity. */
+    private final int[] countUF;
+    /** The number of vertices in <var>toCompleteB</var> with each upper bound on the backward eccentricity. */
+    private final int[] countUB;
+    /**
+     * The number of vertices in both <var>toCompleteF</var> and <var>accRadial</var> with each lower bound
+     * on the forward eccentricity.
+     */
+    private final int[] countLF;
+
+    /** The vertices in <var>toCompleteF</var>, by decreasing <var>uF</var> and then <var>totDistF</var>. */
+    private final IndexedVertexHeap heapUF;
+    /** The vertices in <var>accRadial</var>, by increasing <var>lF</var> and then <var>totDistF</var>. */
+    private final IndexedVertexHeap heapLF;
+    /** The vertices in <var>toCompleteB</var>, by decreasing <var>uB</var> and then <var>totDistB</var>. */
+    private final IndexedVertexHeap heapUB;
+    /** The vertices in <var>toCompleteF</var>, by decreasing <var>totDistF</var> and then <var>uF</var>. */
+    private final IndexedVertexHeap heapTotDistF;
+    /** The vertices in <var>toCompleteB</var>, by decreasing <var>totDistB</var> and then <var>uB</var>. */
+    private final IndexedVertexHeap heapTotDistB;
+
+    /** The number of vertices that can still be radial vertices with a smaller eccentricity than <var>rU</var>. */
+    private int missingR;
+    /** The number of vertices in <var>toCompleteF</var> whose forward eccentricity can still be greater than <var>dL</var>. */
+    private int missingDF;
+    /** The number of vertices in <var>toCompleteB</var> whose backward eccentricity can still be greater than <var>dL</var>. */
+    private int missingDB;
+    /** The number of vertices in <var>toCompleteF</var>. */
+    private int missingAllF;
+    /** The number of vertices in <var>toCompleteB</var>. */
+    private int missingAllB;
+
+
+    /** Lower bound on the diameter of the graph. */
+    private int dL;
+    /** Upper bound on the radius of the graph. */
+    private int rU;
+    /** A vertex whose eccentricity equals the diameter, or -1. */
+    private int dV;
+    /** Whether the eccentricity of <var>dV</var> that equals the diameter is the forward one. */
+    private boolean dVForward = true;
+    /** A vertex whose eccentricity equals the radius, or -1. */
+    private int rV;
+
+
+    /** Number of iterations performed until now. */
+    private int iter;
+    /** Number of iteration before the radius is found. */
+    private int iterR;
+    /** Number of iteration before the diameter is found. */
+    private int iterD;
+    /** Number of iteration before all forward eccentricities are found. */
+    private int iterAllF;
+    /** Number of iteration before all eccentricities are found. */
+    private int iterAll;
+
+
+    /** Lower bound on the forward eccentricities. */
+    protected final int[] lF;
+    /** Upper bound on the forward eccentricities. */
+    protected final int[] uF;
+    /** Lower bound on the backward eccentricities. */
+    protected final int[] lB;
+    /** Upper bound on the backward eccentricities. */
+    protected final int[] uB;
+
+    /**
+     * Total forward distance from already processed vertices (used as tie-break
+     * for the choice of the next vertex to process).
+     */
+    private final long[] totDistF;
+    /**
+     * Total backward distance from already processed vertices (used as
+     * tie-break for the choice of the next vertex to process).
+     */
+    private final long[] totDistB;
+
+    /** The queue of the BFSs performed one at a time, reused by all of them. */
+    private final int[] bfsQueue;
+    /** The depth of every vertex in the current BFS performed one at a time, or -1; it is -1 between BFSs. */
+    private final int[] bfsDist;
+
+
+    /**
+     * Creates a new engine for computing diameter and/or radius and/or all
+     * eccentricities.
+     *
+     * @param graph
+     *            a graph.
+     * @param vertices
+     *            the indices of <var>graph</var> that are vertices, or {@code null} if all of them are.
+     *            The other indices must be isolated.
+     * @param scc
+     *            the strongly connected components of <var>graph</var>.
+     * @param pl
+     *            a progress logger, or {@code null}.
+     * @param output
+     *            which output is requested: radius, diameter, radius and
+     *            diameter, or all eccentricities.
+     * @param accRadial
+     *            the set of vertices that can be considered radial vertices. If
+     *            null, the set is automatically chosen as the set of vertices
+     *            that are in the biggest strongly connected component, or that
+     *            are able to reach the biggest strongly connected component.
+     */
+    public ExactSumSweepEngine(final CSRGraph graph, final BitSet vertices, final SCCCondensation scc,
+                               final ProgressLogger pl, final OutputLevel output, final BitSet accRadial) {
+        this(graph, vertices, scc, pl, output, accRadial, 1);
+    }
+
+    /**
+     * Creates a new engine that, whenever it chooses a BFS step, also performs speculatively the BFSs
+     * of the other most promising BFS steps, up to <var>parallelism</var> BFSs at the same time.
+     * The diameter, the radius and the eccentricities found are the same as with one BFS at a time.
+     *
+     * @param parallelism
+     *            the number of BFSs performed at the same time; when larger than 1, the engine must be
+     *            closed to stop the threads
+     * @see #ExactSumSweepEngine(CSRGraph, BitSet, SCCCondensation, ProgressLogger, OutputLevel, BitSet)
+     */
+    public ExactSumSweepEngine(final CSRGraph graph, final BitSet vertices, final SCCCondensation scc,
+                               final ProgressLogger pl, final OutputLevel output, final BitSet accRadial,
+                               final int parallelism) {
+        this(graph, graph.transpose(), vertices, scc, pl, output, accRadial, parallelism);
+    }
+
+    /**
+     * Creates a new engine on a graph whose transpose is already available, e.g. stored on disk.
+     *
+     * @param reverseGraph
+     *            the transpose of <var>graph</var>.
+     * @see #ExactSumSweepEngine(CSRGraph, BitSet, SCCCondensation, ProgressLogger, OutputLevel, BitSet, int)
+     */
+    public ExactSumSweepEngine(final IndexedGraph graph, final IndexedGraph reverseGraph, final BitSet vertices,
+                               final SCCCondensation scc, final ProgressLogger pl, final OutputLevel output,
+                               final BitSet accRadial, final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive.");
+        }
+        if (reverseGraph.numNodes() != graph.numNodes()) {
+            throw new IllegalArgumentException("The graph and its transpose must have the same number of nodes.");
+        }
+        this.parallelism = parallelism;
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        this.graph = graph;
+        this.reverseGraph = reverseGraph;
+        this.graphCopies = ThreadLocal.withInitial(graph::copy);
+        this.reverseGraphCopies = ThreadLocal.withInitial(reverseGraph::copy);
+        this.scc = scc;
+        this.pl = pl;
+        this.output = output;
+
+        numIndices = graph.numNodes();
+
+        eccF = new int[numIndices];
+        eccB = new int[numIndices];
+        totDistF = new long[numIndices];
+        totDistB = new long[numIndices];
+        lF = new int[numIndices];
+        lB = new int[numIndices];
+        uF = new int[numIndices];
+        uB = new int[numIndices];
+        toCompleteF = new BitSet(numIndices);
+        toCompleteB = new BitSet(numIndices);
+        bfsQueue = new int[numIndices];
+        bfsDist = new int[numIndices];
+        Arrays.fill(bfsDist, -1);
+
+        if (vertices == null) {
+            toCompleteF.set(0, numIndices);
+        } else {
+            toCompleteF.or(vertices);
+        }
+        toCompleteB.or(toCompleteF);
+        numVertices = toCompleteF.cardinality();
+
+        Arrays.fill(eccF, -1);
+        Arrays.fill(eccB, -1);
+        Arrays.fill(uF, numVertices + 1);
+        Arrays.fill(uB, numVertices + 1);
+
+        this.dL = 0;
+        this.rU = Integer.MAX_VALUE;
+        this.dV = -1;
+        this.rV = -1;
+        iterR = -1;
+        iterD = -1;
+        iterAllF = -1;
+        iterAll = -1;
+
+        this.accRadial = accRadial == null ? computeAccRadial() : accRadial;
+
+        countUF = new int[numVertices + 2];
+        countUB = new int[numVertices + 2];
+        countLF = new int[numVertices + 2];
+        recount();
+
+        heapUF = new IndexedVertexHeap(numIndices, toCompleteF, (a, b) -> {
+            final int c = Integer.compare(uF[b], uF[a]);
+            return c != 0 ? c : Long.compare(totDistF[b], totDistF[a]);
+        });
+        heapLF = new IndexedVertexHeap(numIndices, this.accRadial, (a, b) -> {
+            final int c = Integer.compare(lF[a], lF[b]);
+            return c != 0 ? c : Long.compare(totDistF[a], totDistF[b]);
+        });
+        heapUB = new IndexedVertexHeap(numIndices, toCompleteB, (a, b) -> {
+            final int c = Integer.compare(uB[b], uB[a]);
+            return c != 0 ? c : Long.compare(totDistB[b], totDistB[a]);
+        });
+        heapTotDistF = new IndexedVertexHeap(numIndices, toCompleteF, (a, b) -> {
+            final int c = Long.compare(totDistF[b], totDistF[a]);
+            return c != 0 ? c : Integer.compare(uF[b], uF[a]);
+        });
+        heapTotDistB = new IndexedVertexHeap(numIndices, toCompleteB, (a, b) -> {
+            final int c = Long.compare(totDistB[b], totDistB[a]);
+            return c != 0 ? c : Integer.compare(uB[b], uB[a]);
+        });
+    }
+
+
+    private static final boolean DEBUG = true;
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(ExactSumSweepEngine.class);
+
+
+    /**
+     * The type of output requested: radius, diameter, radius and diameter, all
+     * forward eccentricities, or all (forward and backward) eccentricities.
+     */
+    public enum OutputLevel {
+        /**
+         * Computes only the radius of the graph.
+         */
+        RADIUS,
+        /**
+         * Computes only the diameter of the graph.
+         */
+        DIAMETER,
+        /**
+         * Computes both radius and diameter.
+         */
+        RADIUS_DIAMETER,
+        /**
+         * Computes the radius, the diameter, and all the forward
+         * eccentricities.
+         */
+        ALL_FORWARD,
+        /**
+         * Computes the radius, the diameter, and all the (forward and backward)
+         * eccentricities.
+         */
+        ALL
+    }
+
+
+    /**
+     * Returns the index <var>i</var> such that
+     * <code><var>vec</var>[<var>i</var>]</code> is maximum.
+     *
+     * @param vec
+     *            the vector of which we want to compute the argMax
+     * @return the value <var>i</var> such that <var>vec</var>[<var>i</var>] is
+     *         maximum
+     */
+    public static int argMax(final double[] vec) {
+        double max = Double.NEGATIVE_INFINITY;
+        int argMax = -1;
+        for (int i = 0; i < vec.length; i++) {
+            if (vec[i] > max) {
+                argMax = i;
+                max = vec[i];
+            }
+        }
+        return argMax;
+    }
+
+    /**
+     * Returns the vertex <var>v</var> such that <code><var>values</var>[<var>v</var>]</code> is
+     * maximum, among all vertices such that <code><var>acc</var>.get(v)</code> is
+     * true. In case of tie, the vertex maximizing <var>tieBreak</var> is chosen.
+     *
+     * @param values
+     *            the array of which we want to compute the argMax
+     * @param tieBreak
+     *            the tiebreak array
+     * @param acc
+     *            the set used to decide if a vertex is acceptable
+     * @return the vertex <var>v</var> such that <code><var>values</var>[<var>v</var>]</code> is
+     *         maximum, or -1 if no vertex is acceptable
+     */
+    private static int argMax(final long[] values, final int[] tieBreak, final BitSet acc) {
+        long max = Long.MIN_VALUE;
+        int tieBreakForCurrentMax = Integer.MIN_VALUE, argMax = -1;
+        for (int v = acc.nextSetBit(0); v >= 0; v = acc.nextSetBit(v + 1)) {
+            if (values[v] > max || (values[v] == max && tieBreak[v] > tieBreakForCurrentMax)) {
+                argMax = v;
+                max = values[v];
+                tieBreakForCurrentMax = tieBreak[v];
+            }
+        }
+        return argMax;
+    }
+
+
+    /**
+     * Returns the radius of the graph, if it has already been computed
+     * (otherwise, an exception is raised).
+     *
+     * @return the radius
+     */
+    public int getRadius() {
+        if (iterR == -1) {
+            throw new UnsupportedOperationException("The radius has not been"
+                    + "computed, yet. Please, run the compute method with" + "the correct output.");
+        }
+        return rU;
+    }
+
+    /**
+     * Returns the diameter, if it has already been computed (otherwise, an
+     * exception is raised).
+     *
+     * @return the diameter
+     */
+    public int getDiameter() {
+        if (iterD == -1) {
+            throw new UnsupportedOperationException("The diameter has not been"
+                    + "computed, yet. Please, run the compute method with" + "the correct output.");
+        }
+        return dL;
+    }
+
+    /**
+     * Returns a radial vertex, if it has already been computed (otherwise, an
+     * exception is raised).
+     *
+     * @return a radial vertex, or -1 if the graph has no radial vertex
+     */
+    public int getRadialVertex() {
+        if (iterR == -1) {
+            throw new UnsupportedOperationException("The radius has not been"
+                    + "computed, yet. Please, run the compute method with" + "the correct output.");
+        }
+        return rV;
+    }
+
+    /**
+     * Returns a diametral vertex, if it has already been computed (otherwise,
+     * an exception is raised).
+     *
+     * @return a diametral vertex, or -1 if the graph has no arcs
+     */
+    public int getDiametralVertex() {
+        if (iterD == -1) {
+            throw new UnsupportedOperationException("The radius has not been"
+                    + "computed, yet. Please, run the compute method with" + "the correct output.");
+        }
+        return dV;
+    }
+
+    /**
+     * Returns the forward eccentricity of a vertex, if it has already been computed
+     * (otherwise, an exception is raised).
+     *
+     * @param v
+     *            the vertex
+     * @return the forward eccentricity of <var>v</var>
+     */
+    public int getForwardEccentricity(final int v) {
+        int ecc;
+        if (v >= 0 && v < numIndices && (ecc = eccF[v]) >= 0) {
+            return ecc;
+        }
+        throw new UnsupportedOperationException("The forward eccentricity of v has not been"
+                + "computed, yet. Please, use the compute method with" + "the correct output.");
+    }
+
+    /**
+     * Returns the backward eccentricity of a vertex, if it has already been computed
+     * (otherwise, an exception is raised).
+     *
+     * @param v
+     *            the vertex
+     * @return the backward eccentricity of <var>v</var>
+     */
+    public int getBackwardEccentricity(final int v) {
+        int ecc;
+        if (v >= 0 && v < numIndices && (ecc = eccB[v]) >= 0) {
+            return ecc;
+        }
+        throw new UnsupportedOperationException("The backward eccentricity of v has not been"
+                + "computed, yet. Please, use the compute method with" + "the correct output.");
+    }
+
+    /**
+     * Returns a lower bound on the diameter, which is available at any time.
+     *
+     * @return the largest eccentricity found so far
+     */
+    public int getDiameterLowerBound() {
+        return dL;
+    }
+
+    /**
+     * Returns an upper bound on the diameter, which is available at any time. The eccentricities
+     * already found are at most {@link #getDiameterLowerBound()}, so the diameter is at most the largest
+     * upper bound on the (forward, or backward) eccentricities still to be completed.
+     *
+     * @return an upper bound on the diameter
+     */
+    public int getDiameterUpperBound() {
+        final int vF = heapUF.first(), vB = heapUB.first();
+        return Math.max(dL, Math.min(vF == -1 ? dL : uF[vF], vB == -1 ? dL : uB[vB]));
+    }
+
+    /**
+     * Returns the number of iteration needed to compute the radius, if it has
+     * already been computed (otherwise, an exception is raised).
+     *
+     * @return the number of iterations before the radius is found
+     */
+    public int getRadiusIterations() {
+        if (iterR == -1) {
+            throw new UnsupportedOperationException("The radius has not been "
+                    + "computed, yet. Please, run the compute method with " + "the correct output.");
+        }
+        return iterR;
+    }
+
+    /**
+     * Returns the number of iteration needed to compute the diameter, if it has
+     * already been computed (otherwise, an exception is raised).
+     *
+     * @return the number of iterations before the diameter is found
+     */
+    public int getDiameterIterations() {
+        if (iterD == -1) {
+            throw new UnsupportedOperationException("The diameter has not been "
+                    + "computed, yet. Please, run the compute method with the correct output.");
+        }
+        return iterD;
+    }
+
+    /**
+     * Returns the number of iteration needed to compute all forward
+     * eccentricities, if they have already been computed (otherwise, an
+     * exception is raised).
+     *
+     * @return the number of iterations before all forward eccentricities are
+     *         found
+     */
+    public int getAllForwardIterations() {
+        if (iterAllF == -1) {
+            throw new UnsupportedOperationException("All forward eccentricities have not been "
+                    + " computed, yet. Please, run the compute method with the correct output.");
+        }
+        return iterAllF;
+    }
+
+    /**
+     * Returns the number of iteration needed to compute all eccentricities, if
+     * they have already been computed (otherwise, an exception is raised).
+     *
+     * @return the number of iterations before all eccentricities are found
+     */
+    public int getAllIterations() {
+        if (iterAll == -1) {
+            throw new UnsupportedOperationException("All eccentricities have not been "
+                    + " computed, yet. Please, run the compute method with the correct output.");
+        }
+        return iterAll;
+    }
+
+
+    /**
+     * Uses a heuristic to decide which is the best pivot to choose in each
+     * strongly connected component, in order to perform the
+     * {@link #allCCUpperBound(int[])} function.
+     *
+     * @return an array containing in position <var>i</var> the pivot of
+     *         the <var>i</var>th strongly connected component
+     */
+    private int[] findBestPivot() {
+        final int numSCCs = scc.numComponents();
+        final int[] pivots = new int[numSCCs];
+
+        int pivot, v;
+        long best, current;
+        for (int c = 0; c < numSCCs; c++) {
+            pivot = -1;
+            best = 0;
+            for (int i = scc.memberStart(c); i < scc.memberEnd(c); i++) {
+                v = scc.member(i);
+                current = (long) lF[v] + lB[v] + (toCompleteF.get(v) ? 0 : 1) * numVertices + (toCompleteB.get(v) ? 0 : 1) * numVertices;
+
+                if (pivot == -1 || current < best || (current == best && totDistF[v] + totDistB[v] <= totDistF[pivot] + totDistB[pivot])) {
+                    pivot = v;
+                    best = current;
+                }
+            }
+            pivots[c] = pivot;
+        }
+
+        return pivots;
+    }
+
+
+    /**
+     * Computes and returns the set of vertices that are either in the
+     * biggest strongly connected component, or that are able to reach
+     * vertices in the biggest strongly connected component.
+     */
+    private BitSet computeAccRadial() {
+        final BitSet accRadialToReturn = new BitSet(numIndices);
+        if (numVertices == 0) {
+            return accRadialToReturn;
+        }
+
+        int maxSizeSCC = 0;
+        for (int c = 1; c < scc.numComponents(); c++) {
+            if (scc.componentSize(c) > scc.componentSize(maxSizeSCC)) {
+                maxSizeSCC = c;
+            }
+        }
+
+        final Visit visit = new Visit(reverseGraph, scc.member(scc.memberStart(maxSizeSCC)));
+        for (int i = 0; i < visit.numReached; i++) {
+            accRadialToReturn.set(visit.queue[i]);
+        }
+
+        return accRadialToReturn;
+    }
+
+
+    /**
+     * Performs a (forward or backward) BFS, updating lower bounds on the
+     * eccentricities of all visited vertices. The bounds of each vertex are updated when it leaves the
+     * queue, and only the entries of the visited vertices are cleared afterwards, so a BFS that reaches
+     * few vertices costs time proportional to the vertices and arcs it reaches, instead of to the graph.
+     *
+     * @param start
+     *            the starting vertex of the BFS, or -1 to do nothing
+     * @param forward
+     *            if <var>True</var>, the BFS is performed following the
+     *            direction of edges, otherwise it is performed in the opposite
+     *            direction
+     */
+    private void stepSumSweep(final int start, final boolean forward) {
+        if (start == -1) {
+            return;
+        }
+        final IndexedGraph g = forward ? graph : reverseGraph;
+        final int[] queue = bfsQueue;
+        final int[] dist = bfsDist;
+        final int missingBefore = missingAllF + missingAllB;
+
+        int startQ = 0, endQ = 0;
+        queue[endQ++] = start;
+        dist[start] = 0;
+
+        int v, w, vDist;
+        while (startQ < endQ) {
+            v = queue[startQ++];
+            vDist = dist[v];
+            final int[] successors = g.successorArray(v);
+            final int first = g.successorOffset(v), last = first + g.outdegree(v);
+            for (int i = first; i < last; i++) {
+                w = successors[i];
+                if (dist[w] == -1) {
+                    dist[w] = vDist + 1;
+                    queue[endQ++] = w;
+                }
+            }
+            updateReached(forward, v, vDist);
+        }
+
+        final int eccStart = dist[queue[endQ - 1]];
+        for (int i = 0; i < endQ; i++) {
+            dist[queue[i]] = -1;
+        }
+        updateStart(start, forward, eccStart);
+        endBFS(start, forward, missingBefore);
+    }
+
+    /**
+     * Updates the bounds on the eccentricities with the result of a BFS.
+     *
+     * @param start
+     *            the starting vertex of the BFS
+     * @param forward
+     *            whether the BFS was performed following the direction of edges
+     * @param visit
+     *            the BFS from <var>start</var>
+     */
+    private void applyBFS(final int start, final boolean forward, final Visit visit) {
+        final int missingBefore = missingAllF + missingAllB;
+        updateStart(start, forward, visit.ecc());
+
+        // only the vertices reached by the BFS have their bounds changed
+        for (int i = 0; i < visit.numReached; i++) {
+            final int v = visit.queue[i];
+            updateReached(forward, v, visit.dist[v]);
+        }
+        endBFS(start, forward, missingBefore);
+    }
+
+    /**
+     * A BFS with arrays of its own, so that the BFSs of a batch can run at the same time: the vertices in
+     * the order they were visited, and the depth of each vertex, or -1 if it was not reached.
+     */
+    private static final class Visit {
+        private final int[] queue;
+        private final int[] dist;
+        private final int numReached;
+
+        Visit(final IndexedGraph g, final int start) {
+            queue = new int[g.numNodes()];
+            dist = new int[g.numNodes()];
+            Arrays.fill(dist, -1);
+
+            int startQ = 0, endQ = 0;
+            queue[endQ++] = start;
+            dist[start] = 0;
+
+            int v, w;
+            while (startQ < endQ) {
+                v = queue[startQ++];
+                final int[] successors = g.successorArray(v);
+                final int first = g.successorOffset(v), last = first + g.outdegree(v);
+                for (int i = first; i < last; i++) {
+                    w = successors[i];
+                    if (dist[w] == -1) {
+                        dist[w] = dist[v] + 1;
+                        queue[endQ++] = w;
+                    }
+                }
+            }
+            numReached = endQ;
+        }
+
+        int ecc() {
+            return dist[queue[numReached - 1]];
+        }
+    }
+
+    /**
+     * @return the copy of the graph, or of the reversed graph, read by the calling thread of the pool
+     */
+    private IndexedGraph localGraph(final boolean forward) {
+        return (forward ? graphCopies : reverseGraphCopies).get();
+    }
+
+    /**
+     * Sets the (forward or backward) eccentricity of the starting vertex of a BFS, and updates the bounds
+     * on diameter and radius.
+     */
+    private void updateStart(final int start, final boolean forward, final int eccStart) {
+        if ((forward ? toCompleteF : toCompleteB).get(start)) {
+            complete(forward, start);
+        }
+        (forward ? lF : lB)[start] = eccStart;
+        (forward ? uF : uB)[start] = eccStart;
+        (forward ? eccF : eccB)[start] = eccStart;
+        if (forward) {
+            heapLF.changed(start);
+        }
+
+        if (eccStart > dL) {
+            dVForward = forward;
+        }
+        raiseDiameterLowerBound(eccStart, start);
+        if (forward && accRadial.get(start)) {
+            lowerRadiusUpperBound(eccStart, start);
+        }
+    }
+
+    /**
+     * Updates the distance sum and the bounds on the eccentricity, in the other direction, of a vertex
+     * at distance <var>vDist</var> from the starting vertex of a (forward or backward) BFS.
+     */
+    private void updateReached(final boolean forward, final int v, final int vDist) {
+        if (forward) {
+            totDistB[v] += vDist;
+            heapUB.changed(v);
+            heapTotDistB.changed(v);
+        } else {
+            totDistF[v] += vDist;
+            heapUF.changed(v);
+            heapLF.changed(v);
+            heapTotDistF.changed(v);
+        }
+
+        if ((forward ? toCompleteB : toCompleteF).get(v)) {
+            if ((forward ? lB : lF)[v] < vDist) {
+                raiseLowerBound(!forward, v, vDist);
+                if (vDist == (forward ? uB : uF)[v]) {
+                    complete(!forward, v);
+                    (forward ? eccB : eccF)[v] = vDist;
+
+                    if (!forward && accRadial.get(v)) {
+                        lowerRadiusUpperBound(vDist, v);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the source of a BFS and the number of eccentricities it completed, and counts the iteration.
+     */
+    private void endBFS(final int start, final boolean forward, final int missingBefore) {
+        sources.add(WarmStart.source(start, forward));
+        sourceGains.add(missingBefore - missingAllF - missingAllB);
+        this.iter++;
+        if (pl != null)
+            pl.update();
+    }
+
+
+    /**
+     * Chooses the starting vertex of a BFS step of {@link #compute(int)}.
+     *
+     * @param step
+     *            a step between 1 and 5
+     * @return the starting vertex, or -1 if there is none
+     */
+    private int chooseStart(final int step) {
+        return switch (step) {
+            case 1 -> heapUF.first();
+            case 2 -> heapLF.first();
+            case 3 -> heapUB.first();
+            case 4 -> heapTotDistB.first();
+            case 5 -> heapTotDistF.first();
+            default -> throw new IllegalArgumentException("Step " + step + " is not a BFS step.");
+        };
+    }
+
+    /** The number of steps of {@link #compute(int)}: AllCCUpperBound, five kinds of BFS, and the propagation. */
+    private static final int NUM_STEPS = 7;
+    /** The step of {@link #compute(int)} that propagates the bounds through the arcs. */
+    private static final int PROPAGATION_STEP = 6;
+    /** The number of steps of the SumSweep heuristic that {@link #compute(int)} starts with. */
+    private static final int HEURISTIC_STEPS = 6;
+
+    /**
+     * @return whether a step of {@link #compute(int)} is a BFS
+     */
+    private static boolean isBFSStep(final int step) {
+        return step >= 1 && step <= 5;
+    }
+
+    /**
+     * @return whether the BFS of a step of {@link #compute(int)} follows the direction of edges
+     */
+    private static boolean isForwardStep(final int step) {
+        return step == 1 || step == 2 || step == 5;
+    }
+
+
+    /**
+     * Performs <var>iter</var> steps of the SumSweep heuristic, starting from
+     * vertex <var>start</var>.
+     *
+     * @param start
+     *            the starting vertex
+     * @param iter
+     *            the number of iterations
+     */
+    public void sumSweepHeuristic(final int start, final int iter) {
+        sumSweepHeuristic(start, 1, iter, Budget.UNLIMITED, 0, 0);
+    }
+
+    /**
+     * Performs the steps <var>from</var>, ..., <var>to</var> - 1 of the SumSweep heuristic, the first step
+     * being the forward BFS from <var>start</var>, and stops early when <var>budget</var> runs out.
+     *
+     * @return the first step that was not performed
+     */
+    private int sumSweepHeuristic(final int start, final int from, final int to, final Budget budget,
+                                  final long startMillis, final int startIter) {
+        for (int i = from; i < to; i++) {
+            if (budget.isExhausted(startMillis, iter - startIter)) {
+                return i;
+            }
+            if (i == 1) {
+                if (DEBUG)
+                    LOGGER.debug("Performing initial SumSweep visit from " + start + ".");
+                stepSumSweep(start, true);
+            } else if (i % 2 == 0) {
+                final int v = argMax(totDistB, lB, toCompleteB);
+                if (DEBUG)
+                    LOGGER.debug("Performing initial SumSweep visit from " + v + ".");
+                stepSumSweep(v, false);
+            } else {
+                final int v = argMax(totDistF, lF, toCompleteF);
+                if (DEBUG)
+                    LOGGER.debug("Performing initial SumSweep visit from " + v + ".");
+                stepSumSweep(v, true);
+            }
+        }
+        return to;
+    }
+
+
+    /**
+     * Performs a (forward or backward) BFS inside each strongly connected
+     * component, starting from the pivot. The BFSs of different components are independent, so with
+     * a pool they are spread over it: one task for each large component, and one for each run of
+     * consecutive small components.
+     *
+     * @param pivots
+     *            an array containing in position <var>i</var> the pivot of
+     *            the <var>i</var>th strongly connected component
+     * @param forward
+     *            if <var>True</var>, a forward visit is performed, otherwise a
+     *            backward visit
+     * @param distFromPivot
+     *            filled with the distance of each vertex from the pivot of its strongly connected component
+     * @param pivotEcc
+     *            filled with the eccentricity of the pivot of each strongly connected component, inside it
+     */
+    private void computeDistPivot(final int[] pivots, final boolean forward, final int[] distFromPivot, final int[] pivotEcc) {
+        // the BFS inside component c uses the slice of the queue where the members of c are
+        final int[] queue = new int[numIndices];
+
+        if (pool != null) {
+            pool.invoke(new PivotTask(pivots, forward, distFromPivot, pivotEcc, queue, 0, pivots.length));
+        } else {
+            final IndexedGraph g = forward ? graph : reverseGraph;
+            for (int c = 0; c < pivots.length; c++) {
+                pivotBFS(c, pivots[c], g, distFromPivot, pivotEcc, queue);
+            }
+        }
+    }
+
+    /**
+     * Performs a BFS from the pivot of a strongly connected component, that does not leave the
+     * component. Only the entries of the members of the component are written, in all the arrays.
+     */
+    private void pivotBFS(final int c, final int pivot, final IndexedGraph g, final int[] distFromPivot,
+                          final int[] pivotEcc, final int[] queue) {
+        final int[] component = scc.components();
+
+        for (int i = scc.memberStart(c); i < scc.memberEnd(c); i++) {
+            distFromPivot[scc.member(i)] = -1;
+        }
+
+        int startQ = scc.memberStart(c), endQ = startQ;
+        queue[endQ++] = pivot;
+        distFromPivot[pivot] = 0;
+
+        int v, w;
+        while (startQ < endQ) {
+            v = queue[startQ++];
+            final int[] successors = g.successorArray(v);
+            final int first = g.successorOffset(v), last = first + g.outdegree(v);
+            for (int i = first; i < last; i++) {
+                w = successors[i];
+                if (component[w] == c && distFromPivot[w] == -1) {
+                    distFromPivot[w] = distFromPivot[v] + 1;
+                    queue[endQ++] = w;
+                }
+            }
+        }
+        pivotEcc[c] = distFromPivot[queue[endQ - 1]];
+    }
+
+    /** The number of vertices below which the pivot BFSs of consecutive components are batched in one task. */
+    private static final int PIVOT_BATCH_SIZE = 1 << 14;
+
+    /**
+     * Performs the pivot BFSs of a range of components, splitting it in halves until it is a single
+     * component or it has few vertices.
+     */
+    private class PivotTask extends RecursiveAction {
+        private final int[] pivots;
+        private final boolean forward;
+        private final int[] distFromPivot, pivotEcc, queue;
+        private final int from, to;
+
+        PivotTask(int[] pivots, boolean forward, int[] distFromPivot, int[] pivotEcc, int[] queue, int from, int to) {
+            this.pivots = pivots;
+            this.forward = forward;
+            this.distFromPivot = distFromPivot;
+            this.pivotEcc = pivotEcc;
+            this.queue = queue;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1 && scc.memberStart(to) - scc.memberStart(from) > PIVOT_BATCH_SIZE) {
+                final int mid = (from + to) >>> 1;
+                invokeAll(new PivotTask(pivots, forward, distFromPivot, pivotEcc, queue, from, mid),
+                        new PivotTask(pivots, forward, distFromPivot, pivotEcc, queue, mid, to));
+                return;
+            }
+            final IndexedGraph g = localGraph(forward);
+            for (int c = from; c < to; c++) {
+                pivotBFS(c, pivots[c], g, distFromPivot, pivotEcc, queue);
+            }
+        }
+    }
+
+    /**
+     * The ComputePivotBoundsF Procedure from algorithm3 of the article of sumsweep.
+     * The forward eccentricity of a pivot is bounded through the arcs out of its component, so the
+     * components are processed in reverse topological order, after all their successors.
+     */
+    void computePivotBoundsF(final int[] pivots, final int[] eccPivotF, final int[] distPivotF, final int[] distPivotB) {
+        final int[] order = scc.topologicalOrder();
+        int currentScc, currentVal, uFVal;
+
+        for (int k = order.length - 1; k >= 0; k--) {
+            currentScc = order[k];
+            currentVal = eccPivotF[currentScc];
+            uFVal = uF[pivots[currentScc]];
+            if (currentVal >= uFVal) {
+                eccPivotF[currentScc] = uFVal;
+                continue;
+            }
+
+            for (int a = scc.arcStart(currentScc); a < scc.arcEnd(currentScc); a++) {
+                currentVal = Math.max(currentVal, distPivotF[scc.arcSourceVertex(a)] + 1
+                        + distPivotB[scc.arcTargetVertex(a)] + eccPivotF[scc.arcTarget(a)]);
+                if (currentVal >= uFVal) {
+                    currentVal = uFVal;
+                    break;
+                }
+            }
+
+            eccPivotF[currentScc] = currentVal;
+        }
+    }
+
+
+    /**
+     * The ComputePivotBoundsB Procedure from algorithm3 of the article of sumsweep.
+     * The backward eccentricity of a pivot is bounded through the arcs into its component, so the
+     * components are processed in topological order, after all their predecessors.
+     */
+    void computePivotBoundsB(final int[] pivots, final int[] eccPivotB, final int[] distPivotF, final int[] distPivotB) {
+        final int[] order = scc.topologicalOrder();
+        int currentScc, currentVal, uBVal, a;
+
+        for (int k = 0; k < order.length; k++) {
+            currentScc = order[k];
+            currentVal = eccPivotB[currentScc];
+            uBVal = uB[pivots[currentScc]];
+            if (currentVal >= uBVal) {
+                eccPivotB[currentScc] = uBVal;
+                continue;
+            }
+
+            for (int i = scc.inArcStart(currentScc); i < scc.inArcEnd(currentScc); i++) {
+                a = scc.inArc(i);
+                currentVal = Math.max(currentVal, distPivotB[scc.arcTargetVertex(a)] + 1
+                        + distPivotF[scc.arcSourceVertex(a)] + eccPivotB[scc.arcSource(a)]);
+                if (currentVal >= uBVal) {
+                    currentVal = uBVal;
+                    break;
+                }
+            }
+
+            eccPivotB[currentScc] = currentVal;
+        }
+    }
+
+
+    /**
+     * Performs a step of the ExactSumSweep algorithm, by performing the
+     * {@link #allCCUpperBound(int[])} function (see the paper for more details).
+     *
+     * @param pivots
+     *            an array containing in position <var>i</var> the pivot of
+     *            the <var>i</var>th strongly connected component
+     */
+    private void allCCUpperBound(final int[] pivots) {
+        final int[] distPivotF = new int[numIndices], distPivotB = new int[numIndices];
+        final int[] eccPivotF = new int[pivots.length], eccPivotB = new int[pivots.length];
+        computeDistPivot(pivots, true, distPivotF, eccPivotF);
+        computeDistPivot(pivots, false, distPivotB, eccPivotB);
+
+        computePivotBoundsF(pivots, eccPivotF, distPivotF, distPivotB);
+        computePivotBoundsB(pivots, eccPivotB, distPivotF, distPivotB);
+
+        final int[] component = scc.components();
+
+        if (missingAllF > numIndices / DENSE_FRACTION) {
+            // the new bounds of all the indices are compared at once, and only the improved ones are applied
+            final int[] improved = improvedBuffer();
+            final int numImproved = BoundKernels.findImprovedBounds(distPivotB, eccPivotF, component, uF, improved);
+            for (int i = 0; i < numImproved; i++) {
+                final int v = improved[i];
+                if (toCompleteF.get(v)) {
+                    applyPivotBound(true, v, distPivotB[v] + eccPivotF[component[v]]);
+                }
+            }
+        } else {
+            for (int v = toCompleteF.nextSetBit(0); v >= 0; v = toCompleteF.nextSetBit(v + 1)) {
+                applyPivotBound(true, v, distPivotB[v] + eccPivotF[component[v]]);
+            }
+        }
+
+        if (missingAllB > numIndices / DENSE_FRACTION) {
+            final int[] improved = improvedBuffer();
+            final int numImproved = BoundKernels.findImprovedBounds(distPivotF, eccPivotB, component, uB, improved);
+            for (int i = 0; i < numImproved; i++) {
+                final int v = improved[i];
+                if (toCompleteB.get(v)) {
+                    applyPivotBound(false, v, distPivotF[v] + eccPivotB[component[v]]);
+                }
+            }
+        } else {
+            for (int v = toCompleteB.nextSetBit(0); v >= 0; v = toCompleteB.nextSetBit(v + 1)) {
+                applyPivotBound(false, v, distPivotF[v] + eccPivotB[component[v]]);
+            }
+        }
+
+        this.iter += 3;
+    }
+
+    /**
+     * The fraction of the indices, as a divisor, above which the vertices still to be completed are
+     * dense enough for AllCCUpperBound to scan all the indices with {@link BoundKernels}, instead of
+     * iterating over the vertices still to be completed.
+     */
+    private static final int DENSE_FRACTION = 4;
+    /**
+     * The indices whose bounds were improved by a dense step of AllCCUpperBound, shared by the forward and
+     * the backward pass; allocated by the first dense step, or null.
+     */
+    private int[] improved;
+
+    private int[] improvedBuffer() {
+        if (improved == null) {
+            improved = new int[numIndices];
+        }
+        return improved;
+    }
+
+    /**
+     * Lowers the upper bound on the (forward or backward) eccentricity of a vertex still to be completed
+     * to the bound given by the pivot of its strongly connected component, if it is smaller.
+     */
+    private void applyPivotBound(final boolean forward, final int v, final int value) {
+        if (value >= (forward ? uF : uB)[v]) {
+            return;
+        }
+        lowerUpperBound(forward, v, value);
+
+        if ((forward ? lF : lB)[v] == value) {
+            complete(forward, v);
+            (forward ? eccF : eccB)[v] = value;
+
+            if (forward && accRadial.get(v)) {
+                lowerRadiusUpperBound(value, v);
+            }
+        }
+    }
+
+
+    /** The maximum number of rounds of {@link #propagateBounds()}. */
+    private static final int MAX_PROPAGATION_ROUNDS = 8;
+    /** The number of vertices whose new bounds are computed by one task of a parallel propagation round. */
+    private static final int PROPAGATION_BATCH_SIZE = 1 << 14;
+    /**
+     * The bounds computed by a parallel round of {@link #propagateBounds()}, in the order of
+     * {@link #propagatedBounds(int, IndexedGraph, IndexedGraph, int[])}, one array of <var>numIndices</var> entries for each bound; allocated
+     * by the first parallel propagation, or null.
+     */
+    private int[][] propagated;
+
+    /**
+     * Tightens the bounds through the arcs, without any BFS. For an arc <var>v</var> &rarr; <var>w</var>,
+     * every vertex reachable from <var>v</var> is at distance at most 1 plus its distance from some
+     * successor of <var>v</var>, so uF(<var>v</var>) &le; 1 + max uF over the successors of <var>v</var>
+     * (and eccF(<var>v</var>) = 0 without successors). If <var>v</var> and <var>w</var> are in the same
+     * strongly connected component, <var>w</var> reaches all that <var>v</var> reaches, so
+     * uF(<var>v</var>) &le; 1 + uF(<var>w</var>), and symmetrically lF(<var>w</var>) &ge; lF(<var>v</var>) - 1,
+     * uB(<var>w</var>) &le; 1 + uB(<var>v</var>) and lB(<var>v</var>) &ge; lB(<var>w</var>) - 1.
+     * <p>
+     * The rules are applied in rounds over all the arcs, until no bound changes or
+     * {@link #MAX_PROPAGATION_ROUNDS} rounds are performed. Each round costs about as much as a BFS, and
+     * counts as an iteration. With a pool, the new bounds of a round are computed in parallel from the
+     * bounds at the start of the round, and then applied; otherwise, each new bound is applied at once, so
+     * that it is already used by the rest of the round.
+     */
+    private void propagateBounds() {
+        if (pool != null && propagated == null) {
+            propagated = new int[4][numIndices];
+        }
+        boolean changed = true;
+        for (int round = 0; round < MAX_PROPAGATION_ROUNDS && changed; round++) {
+            changed = false;
+            if (pool != null) {
+                pool.invoke(new PropagationTask(0, numIndices));
+                for (int v = 0; v < numIndices; v++) {
+                    changed |= applyPropagatedBounds(v, propagated[0][v], propagated[1][v], propagated[2][v],
+                            propagated[3][v]);
+                }
+            } else {
+                final int[] bounds = new int[4];
+                for (int v = 0; v < numIndices; v++) {
+                    propagatedBounds(v, graph, reverseGraph, bounds);
+                    changed |= applyPropagatedBounds(v, bounds[0], bounds[1], bounds[2], bounds[3]);
+                }
+            }
+            this.iter++;
+        }
+    }
+
+    /**
+     * Computes the bounds on the eccentricities of <var>v</var> given by the bounds of its neighbours,
+     * read from <var>g</var> and <var>rg</var>, the graph and the reversed graph of the calling thread,
+     * and writes them in <code>out[0], ..., out[3]</code>: the upper and lower bound on the forward
+     * eccentricity, and the upper and lower bound on the backward one.
+     */
+    private void propagatedBounds(final int v, final IndexedGraph g, final IndexedGraph rg, final int[] out) {
+        final int[] component = scc.components();
+        final int c = component[v];
+        int newUF = uF[v], newLF = lF[v], newUB = uB[v], newLB = lB[v];
+
+        if (toCompleteF.get(v) || toCompleteB.get(v)) {
+            final int[] successors = g.successorArray(v);
+            final int first = g.successorOffset(v), last = first + g.outdegree(v);
+            int maxU = -1;
+            for (int i = first; i < last; i++) {
+                final int w = successors[i];
+                maxU = Math.max(maxU, uF[w]);
+                if (component[w] == c) {
+                    newUF = Math.min(newUF, uF[w] + 1);
+                    newLB = Math.max(newLB, lB[w] - 1);
+                }
+            }
+            newUF = Math.min(newUF, maxU + 1);
+
+            final int[] predecessors = rg.successorArray(v);
+            final int rFirst = rg.successorOffset(v), rLast = rFirst + rg.outdegree(v);
+            maxU = -1;
+            for (int i = rFirst; i < rLast; i++) {
+                final int w = predecessors[i];
+                maxU = Math.max(maxU, uB[w]);
+                if (component[w] == c) {
+                    newUB = Math.min(newUB, uB[w] + 1);
+                    newLF = Math.max(newLF, lF[w] - 1);
+                }
+            }
+            newUB = Math.min(newUB, maxU + 1);
+        }
+
+        out[0] = newUF;
+        out[1] = newLF;
+        out[2] = newUB;
+        out[3] = newLB;
+    }
+
+    /**
+     * Applies the bounds computed by {@link #propagatedBounds(int, IndexedGraph, IndexedGraph, int[])} to <var>v</var>, for the
+     * directions in which its eccentricity is still to be completed.
+     *
+     * @return whether a bound changed
+     */
+    private boolean applyPropagatedBounds(final int v, final int newUF, final int newLF, final int newUB,
+                                          final int newLB) {
+        boolean changed = false;
+        if (toCompleteF.get(v)) {
+            if (newLF > lF[v]) {
+                raiseLowerBound(true, v, newLF);
+                changed = true;
+            }
+            if (newUF < uF[v]) {
+                lowerUpperBound(true, v, newUF);
+                changed = true;
+            }
+            if (lF[v] == uF[v]) {
+                complete(true, v);
+                eccF[v] = lF[v];
+                if (accRadial.get(v)) {
+                    lowerRadiusUpperBound(lF[v], v);
+                }
+            }
+        }
+        if (toCompleteB.get(v)) {
+            if (newLB > lB[v]) {
+                raiseLowerBound(false, v, newLB);
+                changed = true;
+            }
+            if (newUB < uB[v]) {
+                lowerUpperBound(false, v, newUB);
+                changed = true;
+            }
+            if (lB[v] == uB[v]) {
+                complete(false, v);
+                eccB[v] = lB[v];
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Computes the propagated bounds of a range of vertices into {@link #propagated}, splitting it in
+     * halves until it has few vertices. The bounds are only read, so the tasks do not interfere.
+     */
+    private class PropagationTask extends RecursiveAction {
+        private final int from, to;
+
+        PropagationTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PROPAGATION_BATCH_SIZE) {
+                final int mid = (from + to) >>> 1;
+                invokeAll(new PropagationTask(from, mid), new PropagationTask(mid, to));
+                return;
+            }
+            final int[] bounds = new int[4];
+            final IndexedGraph g = localGraph(true), rg = localGraph(false);
+            for (int v = from; v < to; v++) {
+                propagatedBounds(v, g, rg, bounds);
+                propagated[0][v] = bounds[0];
+                propagated[1][v] = bounds[1];
+                propagated[2][v] = bounds[2];
+                propagated[3][v] = bounds[3];
+            }
+        }
+    }
+
+
+    /**
+     * Recomputes all the counters from the bounds, with a scan of the vertices still to be completed.
+     */
+    private void recount() {
+        Arrays.fill(countUF, 0);
+        Arrays.fill(countUB, 0);
+        Arrays.fill(countLF, 0);
+        missingR = missingDF = missingDB = missingAllF = missingAllB = 0;
+
+        for (int v = toCompleteF.nextSetBit(0); v >= 0; v = toCompleteF.nextSetBit(v + 1)) {
+            missingAllF++;
+            countUF[uF[v]]++;
+            if (uF[v] > dL) {
+                missingDF++;
+            }
+            if (accRadial.get(v)) {
+                countLF[lF[v]]++;
+                if (lF[v] < rU) {
+                    missingR++;
+                }
+            }
+        }
+        for (int v = toCompleteB.nextSetBit(0); v >= 0; v = toCompleteB.nextSetBit(v + 1)) {
+            missingAllB++;
+            countUB[uB[v]]++;
+            if (uB[v] > dL) {
+                missingDB++;
+            }
+        }
+    }
+
+    /**
+     * Raises the lower bound on the (forward or backward) eccentricity of a vertex whose
+     * eccentricity is still to be completed, keeping the counters up to date.
+     */
+    private void raiseLowerBound(final boolean forward, final int v, final int value) {
+        if (forward) {
+            if (accRadial.get(v)) {
+                countLF[lF[v]]--;
+                countLF[value]++;
+                if (lF[v] < rU && value >= rU) {
+                    missingR--;
+                }
+            }
+            lF[v] = value;
+            heapLF.changed(v);
+        } else {
+            lB[v] = value;
+        }
+    }
+
+    /**
+     * Lowers the upper bound on the (forward or backward) eccentricity of a vertex whose
+     * eccentricity is still to be completed, keeping the counters up to date.
+     */
+    private void lowerUpperBound(final boolean forward, final int v, final int value) {
+        final int[] u = forward ? uF : uB, count = forward ? countUF : countUB;
+        count[u[v]]--;
+        count[value]++;
+        if (u[v] > dL && value <= dL) {
+            if (forward) {
+                missingDF--;
+            } else {
+                missingDB--;
+            }
+        }
+        u[v] = value;
+        if (forward) {
+            heapUF.changed(v);
+            heapTotDistF.changed(v);
+        } else {
+            heapUB.changed(v);
+            heapTotDistB.changed(v);
+        }
+    }
+
+    /**
+     * Marks the (forward or backward) eccentricity of a vertex as complete, removing the vertex from
+     * the counters. The eccentricity itself is set by the caller.
+     */
+    private void complete(final boolean forward, final int v) {
+        if (forward) {
+            toCompleteF.clear(v);
+            heapUF.remove(v);
+            heapTotDistF.remove(v);
+            missingAllF--;
+            countUF[uF[v]]--;
+            if (uF[v] > dL) {
+                missingDF--;
+            }
+            if (accRadial.get(v)) {
+                countLF[lF[v]]--;
+                if (lF[v] < rU) {
+                    missingR--;
+                }
+            }
+        } else {
+            toCompleteB.clear(v);
+            heapUB.remove(v);
+            heapTotDistB.remove(v);
+            missingAllB--;
+            countUB[uB[v]]--;
+            if (uB[v] > dL) {
+                missingDB--;
+            }
+        }
+    }
+
+    /**
+     * Raises the lower bound on the diameter, if <var>value</var> is greater. The vertices whose upper
+     * bound is no longer greater than the diameter are found in the buckets between the two values.
+     */
+    private void raiseDiameterLowerBound(final int value, final int v) {
+        if (value <= dL) {
+            return;
+        }
+        for (int x = dL + 1; x <= Math.min(value, countUF.length - 1); x++) {
+            missingDF -= countUF[x];
+            missingDB -= countUB[x];
+        }
+        dL = value;
+        dV = v;
+    }
+
+    /**
+     * Lowers the upper bound on the radius, if <var>value</var> is smaller. The radial candidates whose
+     * lower bound is no longer smaller than the radius are found in the buckets between the two values.
+     */
+    private void lowerRadiusUpperBound(final int value, final int v) {
+        if (value >= rU) {
+            return;
+        }
+        for (int x = value; x <= Math.min(rU - 1, countLF.length - 1); x++) {
+            missingR -= countLF[x];
+        }
+        rU = value;
+        rV = v;
+    }
+
+
+    /**
+     * Returns how many nodes are still to be processed, before outputting the
+     * result. The counters are kept up to date by the methods changing the bounds, so only the
+     * iterations at which each output is found are recorded here.
+     *
+     * @return the number of nodes to be processed
+     */
+    private int findMissingNodes() {
+        if (missingR == 0 && iterR == -1) {
+            iterR = iter;
+        }
+        if ((missingDF == 0 || missingDB == 0) && iterD == -1) {
+            iterD = iter;
+        }
+        if (missingAllF == 0 && iterAllF == -1)
+            iterAllF = iter;
+        if (missingAllF == 0 && missingAllB == 0)
+            iterAll = iter;
+
+        return switch (output) {
+            case RADIUS -> missingR;
+            case DIAMETER -> Math.min(missingDF, missingDB);
+            case RADIUS_DIAMETER -> missingR + Math.min(missingDF, missingDB);
+            case ALL_FORWARD -> missingAllF;
+            default -> missingAllF + missingAllB;
+        };
+    }
+
+
+    /**
+     * Performs a BFS step together with the other most promising BFS steps, in decreasing order of
+     * points, up to {@link #parallelism} BFSs. The BFSs run at the same time, but their results are
+     * applied one at a time in that order, so the bounds do not depend on which BFS finishes first, and
+     * each step gets the points of the nodes its own BFS completed. The speculative steps whose starting
+     * vertex is already complete, or is the starting vertex of a previous step of the batch in the same
+     * direction, are dropped before their BFS starts.
+     *
+     * @param first
+     *            the BFS step chosen by {@link #compute(int)}
+     * @param points
+     *            the points of the steps, updated for the steps performed
+     * @param performed
+     *            filled with the steps performed
+     * @param missingNodes
+     *            the number of nodes to be processed before the batch
+     * @return the number of nodes to be processed after the batch
+     */
+    private int performBatch(final int first, final double[] points, final boolean[] performed, int missingNodes) {
+        final int[] steps = new int[parallelism], starts = new int[parallelism];
+        int numSteps = 0;
+
+        steps[numSteps] = first;
+        starts[numSteps++] = chooseStart(first);
+        final boolean[] chosen = new boolean[points.length];
+        chosen[0] = chosen[PROPAGATION_STEP] = chosen[first] = true;
+
+        while (numSteps < parallelism) {
+            int step = -1;
+            for (int j = 1; j < points.length; j++) {
+                if (!chosen[j] && (step == -1 || points[j] > points[step])) {
+                    step = j;
+                }
+            }
+            if (step == -1) {
+                break;
+            }
+            chosen[step] = true;
+
+            final int start = chooseStart(step);
+            final boolean forward = isForwardStep(step);
+            if (start == -1 || !(forward ? toCompleteF : toCompleteB).get(start)) {
+                continue;
+            }
+            boolean duplicate = false;
+            for (int i = 0; i < numSteps; i++) {
+                duplicate |= starts[i] == start && isForwardStep(steps[i]) == forward;
+            }
+            if (!duplicate) {
+                steps[numSteps] = step;
+                starts[numSteps++] = start;
+            }
+        }
+
+        final List<ForkJoinTask<Visit>> visits = new ArrayList<>(numSteps);
+        for (int i = 0; i < numSteps; i++) {
+            final boolean forward = isForwardStep(steps[i]);
+            final int start = starts[i];
+            visits.add(start == -1 ? null : pool.submit(() -> new Visit(localGraph(forward), start)));
+        }
+
+        int oldMissingNodes;
+        for (int i = 0; i < numSteps; i++) {
+            if (DEBUG)
+                LOGGER.debug("Performing a " + (isForwardStep(steps[i]) ? "forward" : "backward")
+                        + " BFS from " + starts[i] + " for step " + steps[i] + ".");
+            if (starts[i] != -1) {
+                applyBFS(starts[i], isForwardStep(steps[i]), visits.get(i).join());
+            }
+            oldMissingNodes = missingNodes;
+            missingNodes = findMissingNodes();
+            points[steps[i]] = oldMissingNodes - missingNodes;
+            performed[steps[i]] = true;
+        }
+        return missingNodes;
+    }
+
+
+    /**
+     * Makes the next run of {@link #compute(int)} start from what a run on the previous snapshot of the
+     * graph learned, instead of the SumSweep heuristic. If the snapshots have a different number of nodes,
+     * the nodes are matched by ID; otherwise, use {@link WarmStart#remap(java.util.function.IntUnaryOperator, int)}
+     * first.
+     *
+     * @param previous
+     *            the warm start returned by {@link #getWarmStart()} on the previous snapshot, or null
+     */
+    public void warmStart(final WarmStart previous) {
+        warmStart = previous == null || previous.numNodes() == numIndices ? previous
+                : previous.remap(v -> v, numIndices);
+    }
+
+    /**
+     * Returns what this run learned, to warm start the run on the next snapshot of the graph: the
+     * eccentricities found, the diametral and the radial vertex, and the sources of the BFSs that
+     * completed some eccentricity, by decreasing number of eccentricities completed.
+     *
+     * @return the warm start for the next snapshot
+     */
+    public WarmStart getWarmStart() {
+        final int[] order = new int[sources.size()];
+        int numUseful = 0;
+        for (int i = 0; i < order.length; i++) {
+            if (sourceGains.getInt(i) > 0) {
+                order[numUseful++] = i;
+            }
+        }
+        // a stable sort, so that equally useful BFSs keep the order in which they were performed
+        IntArrays.mergeSort(order, 0, numUseful, (a, b) -> Integer.compare(sourceGains.getInt(b), sourceGains.getInt(a)));
+        final int[] useful = new int[numUseful];
+        for (int i = 0; i < numUseful; i++) {
+            useful[i] = sources.getInt(order[i]);
+        }
+        return new WarmStart(eccF.clone(), eccB.clone(), dV, dVForward, rV, useful);
+    }
+
+    /**
+     * Performs the BFSs suggested by {@link #warmStart}: from the diametral vertex, from the vertices of
+     * largest forward and backward eccentricity, from the radial vertex, and then from the sources of the
+     * most useful BFSs of the previous run, in the same order. The BFSs from vertices whose eccentricity in
+     * that direction is already complete, or that are not vertices of this graph, are skipped, and the
+     * replay stops as soon as the output is found.
+     *
+     * @return whether at least one BFS was performed
+     */
+    private boolean warmStartHeuristic(final Budget budget, final long startMillis, final int startIter) {
+        final int[] seeds = new int[4 + warmStart.numSources()];
+        int numSeeds = 0;
+        if (warmStart.getDiametralVertex() != -1) {
+            seeds[numSeeds++] = WarmStart.source(warmStart.getDiametralVertex(), warmStart.isDiametralForward());
+        }
+        if (warmStart.getPeripheralVertex(true) != -1) {
+            seeds[numSeeds++] = WarmStart.source(warmStart.getPeripheralVertex(true), true);
+        }
+        if (warmStart.getPeripheralVertex(false) != -1) {
+            seeds[numSeeds++] = WarmStart.source(warmStart.getPeripheralVertex(false), false);
+        }
+        if (warmStart.getRadialVertex() != -1) {
+            seeds[numSeeds++] = WarmStart.source(warmStart.getRadialVertex(), true);
+        }
+        for (int i = 0; i < warmStart.numSources(); i++) {
+            seeds[numSeeds++] = warmStart.getSource(i);
+        }
+
+        final int iterBefore = iter;
+        for (int i = 0; i < numSeeds && findMissingNodes() > 0; i++) {
+            if (budget.isExhausted(startMillis, iter - startIter)) {
+                break;
+            }
+            final boolean forward = seeds[i] >= 0;
+            final int v = forward ? seeds[i] : ~seeds[i];
+            if (v < numIndices && (forward ? toCompleteF : toCompleteB).get(v)) {
+                if (DEBUG)
+                    LOGGER.debug("Performing warm start " + (forward ? "forward" : "backward") + " visit from " + v + ".");
+                stepSumSweep(v, forward);
+            }
+        }
+        return iter > iterBefore;
+    }
+
+
+    /**
+     * The first value of a checkpoint file, which identifies its format: it must change whenever a field is
+     * added, so that the files of another version are rejected instead of misread. The last digit was 1 for
+     * the files without the sources of the BFSs (and, by mistake, for the first files with them), and is 2
+     * since the propagation step was added.
+     */
+    private static final long CHECKPOINT_MAGIC = 0x4553534348454b32L;
+
+    /**
+     * Makes {@link #compute(int)} save its state to a file, at most once every <var>intervalMillis</var>
+     * milliseconds. The file is first written next to <var>file</var>, and then moved over it, so a
+     * crash during a checkpoint leaves the previous one intact.
+     *
+     * @param file
+     *            the checkpoint file, or null to stop checkpointing
+     * @param intervalMillis
+     *            the minimum time between two checkpoints, in milliseconds
+     * @see #resume(Path)
+     */
+    public void setCheckpoint(final Path file, final long intervalMillis) {
+        this.checkpointFile = file;
+        this.checkpointInterval = intervalMillis;
+    }
+
+    /**
+     * Saves the bounds, the eccentricities, the distance sums, the vertices still to be completed,
+     * the bounds on diameter and radius, the iteration counters, the points of the steps and the sources
+     * of the BFSs.
+     */
+    private void checkpoint(final double[] points) {
+        final Path tmp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        final int words = (numIndices + Long.SIZE - 1) / Long.SIZE;
+        try (CheckpointFile out = CheckpointFile.create(tmp)) {
+            out.writeLongs(CHECKPOINT_MAGIC, numIndices, numVertices, dL, rU, dV, rV, iter, iterR, iterD,
+                    iterAllF, iterAll, dVForward ? 1 : 0, sources.size());
+            out.writeDoubles(points);
+            out.writeInts(eccF);
+            out.writeInts(eccB);
+            out.writeInts(lF);
+            out.writeInts(uF);
+            out.writeInts(lB);
+            out.writeInts(uB);
+            out.writeLongs(totDistF);
+            out.writeLongs(totDistB);
+            out.writeLongs(Arrays.copyOf(toCompleteF.toLongArray(), words));
+            out.writeLongs(Arrays.copyOf(toCompleteB.toLongArray(), words));
+            out.writeInts(sources.toIntArray());
+            out.writeInts(sourceGains.toIntArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write the checkpoint " + tmp, e);
+        }
+        try {
+            Files.move(tmp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            CheckpointFile.syncDirectory(checkpointFile.toAbsolutePath().getParent());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot replace the checkpoint " + checkpointFile, e);
+        }
+        if (DEBUG)
+            LOGGER.debug("Checkpoint saved to " + checkpointFile + " after " + iter + " iterations.");
+    }
+
+    /**
+     * Restores the state saved by a checkpoint of an engine on the same graph, so that the next call
+     * to {@link #compute(int)} continues from it instead of starting from scratch.
+     *
+     * @param file
+     *            a checkpoint file
+     * @throws IOException
+     *             if the file cannot be read, or it is not a checkpoint of an engine on this graph; the
+     *             engine is then left as it was
+     * @see #setCheckpoint(Path, long)
+     */
+    public void resume(final Path file) throws IOException {
+        final int words = (numIndices + Long.SIZE - 1) / Long.SIZE;
+        // the whole file is read before any field is changed, so a file that cannot be read leaves the
+        // engine as it was
+        final long[] header = new long[11];
+        final double[] points = new double[NUM_STEPS];
+        final int[][] ints = new int[6][numIndices];
+        final long[][] totDist = new long[2][numIndices];
+        final long[][] bits = new long[2][words];
+        final int[] history;
+        final int[] gains;
+        try (CheckpointFile in = CheckpointFile.open(file)) {
+            if (in.readLong() != CHECKPOINT_MAGIC) {
+                throw new IOException(file + " is not a checkpoint file.");
+            }
+            if (in.readLong() != numIndices || in.readLong() != numVertices) {
+                throw new IOException(file + " is the checkpoint of a different graph.");
+            }
+            for (int i = 0; i < header.length; i++) {
+                header[i] = in.readLong();
+            }
+            in.readDoubles(points);
+            for (int[] array : ints) {
+                in.readInts(array);
+            }
+            for (long[] array : totDist) {
+                in.readLongs(array);
+            }
+            for (long[] array : bits) {
+                in.readLongs(array);
+            }
+            history = new int[(int) header[10]];
+            in.readInts(history);
+            gains = new int[history.length];
+            in.readInts(gains);
+        }
+
+        dL = (int) header[0];
+        rU = (int) header[1];
+        dV = (int) header[2];
+        rV = (int) header[3];
+        iter = (int) header[4];
+        iterR = (int) header[5];
+        iterD = (int) header[6];
+        iterAllF = (int) header[7];
+        iterAll = (int) header[8];
+        dVForward = header[9] != 0;
+        System.arraycopy(ints[0], 0, eccF, 0, numIndices);
+        System.arraycopy(ints[1], 0, eccB, 0, numIndices);
+        System.arraycopy(ints[2], 0, lF, 0, numIndices);
+        System.arraycopy(ints[3], 0, uF, 0, numIndices);
+        System.arraycopy(ints[4], 0, lB, 0, numIndices);
+        System.arraycopy(ints[5], 0, uB, 0, numIndices);
+        System.arraycopy(totDist[0], 0, totDistF, 0, numIndices);
+        System.arraycopy(totDist[1], 0, totDistB, 0, numIndices);
+        toCompleteF.clear();
+        toCompleteF.or(BitSet.valueOf(bits[0]));
+        toCompleteB.clear();
+        toCompleteB.or(BitSet.valueOf(bits[1]));
+        sources.clear();
+        sources.addElements(0, history);
+        sourceGains.clear();
+        sourceGains.addElements(0, gains);
+        resumedPoints = points;
+        heuristicStep = HEURISTIC_STEPS;
+
+        recount();
+        heapUF.reset(toCompleteF);
+        heapLF.reset(accRadial);
+        heapUB.reset(toCompleteB);
+        heapTotDistF.reset(toCompleteF);
+        heapTotDistB.reset(toCompleteB);
+    }
+
+
+    /**
+     * Computes diameter, radius, and/or all eccentricities. Results can be
+     * accessed by methods such as {@link #getDiameter()},
+     * {@link #getRadialVertex()},
+     * {@link #getForwardEccentricity(int)}, and
+     * {@link #getBackwardEccentricity(int)}.
+     *
+     * @param start
+     *            the vertex the initial SumSweep heuristic starts from
+     */
+    public void compute(final int start) {
+        compute(start, Budget.UNLIMITED, null);
+    }
+
+    /**
+     * As {@link #compute(int)}, but stops when <var>budget</var> runs out. The BFSs of the initial
+     * heuristic count as the others, and the steps of AllCCUpperBound count as three BFSs, as in the
+     * iteration counters. A run that is stopped, even during the initial heuristic, can be continued by
+     * calling this method again.
+     *
+     * @param start
+     *            the vertex the initial SumSweep heuristic starts from, if the run is not a continuation
+     * @param budget
+     *            the budget of this call
+     * @param listener
+     *            receives the bounds on the diameter whenever they improve, or {@code null}
+     * @return a lower and an upper bound on the diameter, which are equal if the diameter was found
+     */
+    public Pair<Integer, Integer> compute(final int start, final Budget budget, final BoundsListener listener) {
+        final long startMillis = System.currentTimeMillis();
+        final int startIter = iter;
+        if (pl != null) {
+            pl.start("Starting visits...");
+            pl.itemsName = "nodes";
+            pl.displayLocalSpeed = true;
+        }
+
+        final double[] points = new double[NUM_STEPS];
+        final boolean[] performed = new boolean[NUM_STEPS];
+
+        if (heuristicStep < HEURISTIC_STEPS) {
+            // the BFSs of the heuristics count against the budget, like those of the steps
+            if (heuristicStep == 0 && !budget.isExhausted(startMillis, 0)) {
+                heuristicStep = warmStart != null && warmStartHeuristic(budget, startMillis, startIter)
+                        ? HEURISTIC_STEPS : 1;
+                heuristicStart = start;
+                warmStart = null;
+            }
+            if (heuristicStep > 0) {
+                heuristicStep = sumSweepHeuristic(heuristicStart, heuristicStep, HEURISTIC_STEPS, budget,
+                        startMillis, startIter);
+            }
+            resumedPoints = null;
+            Arrays.fill(points, numVertices);
+        } else if (resumedPoints != null) {
+            System.arraycopy(resumedPoints, 0, points, 0, points.length);
+            resumedPoints = null;
+        } else {
+            Arrays.fill(points, numVertices);
+        }
+        int missingNodes = findMissingNodes(), oldMissingNodes;
+        lastCheckpoint = System.currentTimeMillis();
+        notifyBounds(listener);
+
+        while (missingNodes > 0) {
+            if (budget.isExhausted(startMillis, iter - startIter)) {
+                if (DEBUG)
+                    LOGGER.debug("Out of budget after " + (iter - startIter) + " iterations.");
+                resumedPoints = points;
+                break;
+            }
+
+            final int stepToPerform = argMax(points);
+            Arrays.fill(performed, false);
+            performed[stepToPerform] = true;
+
+            if (pool != null && isBFSStep(stepToPerform)) {
+                missingNodes = performBatch(stepToPerform, points, performed, missingNodes);
+            } else {
+                switch (stepToPerform) {
+                    case 0:
+                        if (DEBUG)
+                            LOGGER.debug("Performing AllCCUpperBound.");
+                        this.allCCUpperBound(findBestPivot());
+                        break;
+                    case 1:
+                        if (DEBUG)
+                            LOGGER.debug("Performing a forward BFS, from a vertex maximizing the upper bound.");
+                        this.stepSumSweep(chooseStart(1), true);
+                        break;
+                    case 2:
+                        if (DEBUG)
+                            LOGGER.debug("Performing a forward BFS, from a vertex minimizing the lower bound.");
+                        this.stepSumSweep(chooseStart(2), true);
+                        break;
+                    case 3:
+                        if (DEBUG)
+                            LOGGER.debug("Performing a backward BFS, from a vertex maximizing the upper bound.");
+                        this.stepSumSweep(chooseStart(3), false);
+                        break;
+                    case 4:
+                        if (DEBUG)
+                            LOGGER.debug("Performing a backward BFS, from a vertex maximizing the distance sum.");
+                        this.stepSumSweep(chooseStart(4), false);
+                        break;
+                    case 5:
+                        if (DEBUG)
+                            LOGGER.debug("Performing a forward BFS, from a vertex maximizing the distance sum.");
+                        this.stepSumSweep(chooseStart(5), true);
+                        break;
+                    case PROPAGATION_STEP:
+                        if (DEBUG)
+                            LOGGER.debug("Propagating the bounds through the arcs.");
+                        this.propagateBounds();
+                        break;
+                }
+
+                oldMissingNodes = missingNodes;
+                missingNodes = this.findMissingNodes();
+                points[stepToPerform] = oldMissingNodes - missingNodes;
+            }
+
+            if (iter > 20) {
+                for (int j = 0; j < points.length; j++) {
+                    if (!performed[j] && points[j] >= 0) {
+                        points[j] = points[j] + 2.0 / iter;
+                    }
+                }
+            }
+            if (DEBUG)
+                LOGGER.debug("    Missing nodes: " + missingNodes + "/" + 2 * numVertices + ".");
+
+            notifyBounds(listener);
+
+            if (checkpointFile != null && System.currentTimeMillis() - lastCheckpoint >= checkpointInterval) {
+                checkpoint(points);
+                lastCheckpoint = System.currentTimeMillis();
+            }
+        }
+        if (DEBUG) {
+            if (this.output == OutputLevel.RADIUS || this.output == OutputLevel.RADIUS_DIAMETER)
+                LOGGER.debug("Radius: " + rU + " (" + iterR + " iterations).");
+            if (this.output == OutputLevel.DIAMETER || this.output == OutputLevel.RADIUS_DIAMETER)
+                LOGGER.debug("Diameter: " + dL + " (" + iterD + " iterations).");
+        }
+        if (pl != null)
+            pl.done();
+        return new Pair<>(getDiameterLowerBound(), getDiameterUpperBound());
+    }
+
+    /**
+     * Passes the bounds on the diameter to <var>listener</var>, if they changed since the last time.
+     */
+    private void notifyBounds(final BoundsListener listener) {
+        if (listener == null) {
+            return;
+        }
+        final int lower = getDiameterLowerBound(), upper = getDiameterUpperBound();
+        if (lower != notifiedLower || upper != notifiedUpper) {
+            notifiedLower = lower;
+            notifiedUpper = upper;
+            listener.boundsChanged(lower, upper);
+        }
+    }
+
+    /**
+     * Stops the threads of the pool, so that they no longer hold the engine. The results stay available,
+     * but the engine cannot compute in parallel afterwards; without a pool, this does nothing.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package algorithms;
 
+import algorithms.CompressedSparseRow.CSRGraph;
+import algorithms.CompressedSparseRow.VertexIndexer;
 import org.jgrapht.Graph;
 import org.jgrapht.graph.AbstractBaseGraph;
 
@@ -20,18 +22,21 @@ public class Four_Sweep<V,E> extends Diameter_Algorithm<V,E> {
 
     public Pair<V, Integer> four_sweep() {
         Graph<V,E> g = super.getGraph();
-        BFS<V, E> bfs = new BFS<>(g, s);
+        VertexIndexer<V> indexer = new VertexIndexer<>(g);
+        CSRGraph csr = CSRGraph.fromGraph(g, indexer);
+
+        BFS<V, E> bfs = new BFS<>(csr, indexer, s);
         V a1 = bfs.getFurthest();
 
-        BFS<V, E> bfs2 = new BFS<>(g, a1);
+        BFS<V, E> bfs2 = new BFS<>(csr, indexer, a1);
         V b1 = bfs2.getFurthest();
         V r2 = bfs2.getMid(b1);
         int ecc_a1 = bfs2.getDepth(b1);
 
-        BFS<V, E> bfs3 = new BFS<>(g, r2);
+        BFS<V, E> bfs3 = new BFS<>(csr, indexer, r2);
         V a2 = bfs3.getFurthest();
 
-        BFS<V, E> bfs4 = new BFS<>(g, a2);
+        BFS<V, E> bfs4 = new BFS<>(csr, indexer, a2);
         V b2 = bfs4.getFurthest();
         V r1 = bfs4.getMid(b2);
         int ecc_a2 = bfs4.getDepth(b2);
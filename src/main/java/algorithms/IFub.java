@@ -1,49 +1,265 @@
 package algorithms;
 
+import algorithms.CompressedSparseRow.CSRBFS;
+import algorithms.CompressedSparseRow.CSREccentricityProbe;
+import algorithms.CompressedSparseRow.CSRGraph;
+import algorithms.CompressedSparseRow.VertexIndexer;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import org.javatuples.Pair;
 import org.jgrapht.Graph;
 
-import java.util.Set;
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
 
 public class IFub<V,E> {
     private final Graph<V,E> g;
     private final VertexChooser chooser;
+    private final VertexIndexer<V> indexer;
+    private final CSRGraph csr;
+    private final CSREccentricityProbe probe;
+    /** The BFS from the vertex whose layers are scanned, which indexes every layer at once. */
+    private CSRBFS levels;
+    /** An upper bound on the number of vertices reachable from any vertex of the layers of {@link #levels}. */
+    private int reachable;
+    /** An upper bound on the eccentricity of any vertex of the layer F_i of {@link #levels}, minus i. */
+    private int eccOffset;
     private int numBFS;
     private int numLayeredBFS;
+    /** The budget of the current run, and the time and the number of BFSs at its start. */
+    private Budget budget = Budget.UNLIMITED;
+    private long budgetStartMillis;
+    private int budgetStartBFS;
+    /** Whether the current run stopped a layer because it ran out of budget. */
+    private boolean outOfBudget;
+    /** The last bounds on the diameter passed to the listener of the current run. */
+    private int notifiedLower, notifiedUpper;
+    /** What the run on the previous snapshot of the graph learned, by index, or null. */
+    private WarmStart warmStart;
+    /** The eccentricity of each vertex, by index, or -1 if no BFS computed it exactly. */
+    private final int[] knownEcc;
+    /** The index of the vertex whose layers were scanned by the last run, or -1. */
+    private int root = -1;
 
     public IFub(Graph<V, E> g, VertexChooser chooser) {
         this.g = g;
         this.chooser = chooser;
+        this.indexer = new VertexIndexer<>(g);
+        this.csr = CSRGraph.fromGraph(g, indexer);
+        this.probe = new CSREccentricityProbe(csr);
+        this.knownEcc = new int[indexer.size()];
+        Arrays.fill(knownEcc, -1);
     }
 
     public Integer run() {
         numBFS = 0;
         numLayeredBFS = 0;
-        V u = chooser.getInitialNode(g);
-        return run(u, 0 , 0);
+        V u = getInitialNode();
+        return run(u, warmLowerBound(), 0);
     }
 
     public Integer run(V u, int l, int k) {
-        BFS<V, E> bfs = new BFS<>(g, u);
-        numBFS++;
-        int ecc_u = bfs.getEcc();
-        int i = ecc_u;
-        int lb = Math.max(l, ecc_u);
-        int ub = 2 * ecc_u;
-
-        while (ub - lb > k) {
-            System.out.println("ub - lb = " + ub + " - " + lb + " = " + (ub - lb));
-            int bi_u = getMaxEccOfLayer(u, i);
-            if (Math.max(lb, bi_u) > 2 * (i - 1)) {
-                return Math.max(lb, bi_u);
+        return run(u, l, k, Budget.UNLIMITED, null).getValue0();
+    }
+
+    /**
+     * As {@link #run()}, but stops when <var>budget</var> runs out.
+     *
+     * @see #run(Object, int, int, Budget, BoundsListener)
+     */
+    public Pair<Integer, Integer> run(Budget budget, BoundsListener listener) {
+        numBFS = 0;
+        numLayeredBFS = 0;
+        // the BFSs of the warm lower bound are charged to the budget too
+        startBudget(budget);
+        V u = getInitialNode();
+        return runWithinBudget(u, warmLowerBound(), 0, listener);
+    }
+
+    /**
+     * Makes the next run start from what a run on the previous snapshot of the graph learned: its layers
+     * are those of the radial vertex (or of the vertex whose layers were scanned) of the previous run, its
+     * lower bound is the eccentricity of the previous diametral vertex, and the vertices of each layer are
+     * probed by decreasing previous eccentricity, so that the threshold of the probes grows quickly.
+     * The vertices of the two snapshots are matched by their node IDs.
+     *
+     * @param previous the warm start of the previous snapshot, or null
+     * @param idOf the node ID of each vertex
+     */
+    public void warmStart(WarmStart previous, ToIntFunction<V> idOf) {
+        if (previous == null) {
+            warmStart = null;
+            return;
+        }
+        Int2IntOpenHashMap indexOfId = new Int2IntOpenHashMap(indexer.size());
+        indexOfId.defaultReturnValue(-1);
+        for (int i = 0; i < indexer.size(); i++) {
+            indexOfId.put(idOf.applyAsInt(indexer.vertexAt(i)), i);
+        }
+        warmStart = previous.remap(indexOfId::get, indexer.size());
+    }
+
+    /**
+     * Returns what the last run learned, to warm start the run on the next snapshot of the graph: the
+     * eccentricities computed exactly, the vertex of largest eccentricity among them, and the vertex whose
+     * layers were scanned. The radius is not computed, so there is no radial vertex.
+     *
+     * @param idOf the node ID of each vertex
+     */
+    public WarmStart getWarmStart(ToIntFunction<V> idOf) {
+        int diametral = -1;
+        for (int v = 0; v < knownEcc.length; v++) {
+            if (knownEcc[v] >= 0 && (diametral == -1 || knownEcc[v] > knownEcc[diametral])) {
+                diametral = v;
+            }
+        }
+        int[] eccB = new int[knownEcc.length];
+        Arrays.fill(eccB, -1);
+        WarmStart warm = new WarmStart(knownEcc.clone(), g.getType().isDirected() ? eccB : knownEcc.clone(),
+                diametral, true, -1, root == -1 ? new int[0] : new int[] {WarmStart.source(root, true)});
+
+        int numIds = 0;
+        for (int i = 0; i < indexer.size(); i++) {
+            numIds = Math.max(numIds, idOf.applyAsInt(indexer.vertexAt(i)) + 1);
+        }
+        return warm.remap(i -> idOf.applyAsInt(indexer.vertexAt(i)), numIds);
+    }
+
+    /**
+     * @return the radial vertex, or the first forward source, of the warm start if there is one, or the
+     * vertex of the chooser otherwise
+     */
+    private V getInitialNode() {
+        if (warmStart != null) {
+            if (warmStart.getRadialVertex() != -1) {
+                return indexer.vertexAt(warmStart.getRadialVertex());
+            }
+            for (int i = 0; i < warmStart.numSources(); i++) {
+                if (warmStart.getSource(i) >= 0) {
+                    return indexer.vertexAt(warmStart.getSource(i));
+                }
             }
-            lb = Math.max(lb, bi_u);
-            ub = 2 * (i - 1);
-            i = i - 1;
         }
+        return chooser.getInitialNode(g);
+    }
 
+    /**
+     * Performs a BFS from the diametral vertex of the warm start, and from its vertex of largest forward
+     * eccentricity: their eccentricities in this graph are lower bounds on the diameter.
+     *
+     * @return the largest of these eccentricities, or 0 if there is no warm start
+     */
+    private int warmLowerBound() {
+        if (warmStart == null) {
+            return 0;
+        }
+        int lb = 0;
+        int diametral = warmStart.isDiametralForward() ? warmStart.getDiametralVertex() : -1;
+        int peripheral = warmStart.getPeripheralVertex(true);
+        for (int v : new int[] {diametral, peripheral}) {
+            // one BFS of the budget is left for the BFS from u, without which no bound is certified
+            if (v != -1 && knownEcc[v] == -1 && !budget.isExhausted(budgetStartMillis, numBFS + 1 - budgetStartBFS)) {
+                knownEcc[v] = new CSRBFS(csr, v).getEcc();
+                numBFS++;
+            }
+            if (v != -1) {
+                lb = Math.max(lb, knownEcc[v]);
+            }
+        }
         return lb;
     }
 
+    /**
+     * As {@link #run(Object, int, int)}, but stops when <var>budget</var> runs out, even in the middle of
+     * a layer, and passes the bounds on the diameter to <var>listener</var> whenever they improve.
+     *
+     * The BFS from <var>u</var> is performed even if the budget is already exhausted, since no bound is
+     * certified without it.
+     *
+     * On a directed graph, <code>ecc(x) &lt;= d(x, u) + ecc(u)</code> does not hold, so no upper bound is
+     * certified: the upper bound is always {@link Integer#MAX_VALUE}.
+     *
+     * @param listener the listener of the bounds, or {@code null}
+     * @return the best lower and upper bounds on the diameter certified within the budget
+     */
+    public Pair<Integer, Integer> run(V u, int l, int k, Budget budget, BoundsListener listener) {
+        startBudget(budget);
+        return runWithinBudget(u, l, k, listener);
+    }
+
+    private void startBudget(Budget budget) {
+        this.budget = budget;
+        budgetStartMillis = System.currentTimeMillis();
+        budgetStartBFS = numBFS;
+    }
+
+    /**
+     * The body of {@link #run(Object, int, int, Budget, BoundsListener)}, once the budget is started.
+     */
+    private Pair<Integer, Integer> runWithinBudget(V u, int l, int k, BoundsListener listener) {
+        outOfBudget = false;
+        notifiedLower = notifiedUpper = -1;
+        try {
+            root = indexer.indexOf(u);
+            setLevels(new CSRBFS(csr, root));
+            numBFS++;
+            int ecc_u = levels.getEcc();
+            knownEcc[root] = ecc_u;
+            int i = ecc_u;
+            int lb = Math.max(l, ecc_u);
+            int ub = 2 * ecc_u;
+            notifyBounds(listener, lb, certified(ub));
+
+            while (ub - lb > k) {
+                if (isOutOfBudget()) {
+                    break;
+                }
+                System.out.println("ub - lb = " + ub + " - " + lb + " = " + (ub - lb));
+                int bi_u = getMaxEccOfLayer(u, i, lb);
+                if (outOfBudget) {
+                    // F_i was not completed, so ub = 2i still holds
+                    lb = Math.max(lb, bi_u);
+                    break;
+                }
+                if (Math.max(lb, bi_u) > 2 * (i - 1)) {
+                    lb = Math.max(lb, bi_u);
+                    notifyBounds(listener, lb, certified(lb));
+                    return new Pair<>(lb, certified(lb));
+                }
+                lb = Math.max(lb, bi_u);
+                ub = 2 * (i - 1);
+                i = i - 1;
+                notifyBounds(listener, lb, certified(Math.max(lb, ub)));
+            }
+
+            notifyBounds(listener, lb, certified(Math.max(lb, ub)));
+            return new Pair<>(lb, certified(Math.max(lb, ub)));
+        } finally {
+            this.budget = Budget.UNLIMITED;
+            warmStart = null;
+        }
+    }
+
+    private boolean isOutOfBudget() {
+        return budget.isExhausted(budgetStartMillis, numBFS - budgetStartBFS);
+    }
+
+    /**
+     * @return <var>ub</var> if it is an upper bound on the diameter, i.e. if the graph is undirected, and
+     * {@link Integer#MAX_VALUE} otherwise
+     */
+    private int certified(int ub) {
+        return g.getType().isDirected() ? Integer.MAX_VALUE : ub;
+    }
+
+    private void notifyBounds(BoundsListener listener, int lb, int ub) {
+        if (listener != null && (lb != notifiedLower || ub != notifiedUpper)) {
+            notifiedLower = lb;
+            notifiedUpper = ub;
+            listener.boundsChanged(lb, ub);
+        }
+    }
+
     /**
      * Let F_i be the set of vertices at distance i from u.
      * Then, get Max Ecc returns the maximum eccentricity of the vertices in F_i.
@@ -51,20 +267,55 @@ public class IFub<V,E> {
      * @return the maximum eccentricity of the vertices in F_i
      */
     public int getMaxEccOfLayer(V v, int i) {
-        Layered_BFS<V, E> bfs = new Layered_BFS<>(g, v, i);
-        numLayeredBFS++;
-        Set<V> layer = bfs.getLayer();
+        return getMaxEccOfLayer(v, i, -1);
+    }
+
+    /**
+     * Let F_i be the set of vertices at distance i from u.
+     * Returns the maximum eccentricity of the vertices in F_i if it is greater than <var>threshold</var>,
+     * or a value at most <var>threshold</var> otherwise. Each vertex is only probed against the maximum
+     * found so far, so most of the BFSs stop before visiting the whole graph.
+     * On a directed graph the probes are bounded only by the number of vertices, so they stop early only
+     * when the vertices left unvisited are too few to go beyond the threshold.
+     * @param v vertex
+     * @param threshold the maximum eccentricity is not needed if it is at most this value
+     * @return the maximum eccentricity of the vertices in F_i, if it is greater than <var>threshold</var>
+     */
+    public int getMaxEccOfLayer(V v, int i, int threshold) {
+        CSRBFS bfs = getLevels(indexer.indexOf(v));
+        if (i > bfs.getEcc()) {
+            return 0;
+        }
 
         long start, timeElapsed, millisElapsed;
         double seccondsElapsed;
-        int layerSize = layer.size(), count = 1;
+        int layerStart = bfs.getLevelStart(i), layerEnd = bfs.getLevelEnd(i);
+        int layerSize = layerEnd - layerStart, count = 1;
+        int upperBound = i + eccOffset;
+
+        int[] layer = null;
+        if (warmStart != null) {
+            // the vertices that were the most eccentric in the previous snapshot are probed first
+            layer = new int[layerSize];
+            for (int j = 0; j < layerSize; j++) {
+                layer[j] = bfs.getReached(layerStart + j);
+            }
+            WarmStart previous = warmStart;
+            IntArrays.mergeSort(layer, (a, b) -> Integer.compare(previous.getForwardEccentricity(b),
+                    previous.getForwardEccentricity(a)));
+        }
 
         int maxEcc = 0;
-        for (V vertex : layer) {
+        for (int j = layerStart; j < layerEnd; j++) {
             start = System.nanoTime();
 
-            BFS<V, E> bfs2 = new BFS<>(g, vertex);
+            int x = layer == null ? bfs.getReached(j) : layer[j - layerStart];
+            int probeThreshold = Math.max(threshold, maxEcc);
+            int ecc = probe.probe(x, probeThreshold, upperBound, reachable);
             numBFS++;
+            if (ecc > probeThreshold) {
+                knownEcc[x] = ecc;
+            }
 
             timeElapsed = System.nanoTime() - start;
             millisElapsed = timeElapsed / 1_000_000;
@@ -72,15 +323,52 @@ public class IFub<V,E> {
             System.out.println("finished " + count++ + " / " + layerSize + " from current layer in " + seccondsElapsed + " seconds");
 
 
-            int ecc = bfs2.getEcc();
             if (ecc > maxEcc) {
                 maxEcc = ecc;
             }
+            if (maxEcc >= upperBound) {
+                // no vertex of the layer can do better
+                break;
+            }
+            if (j + 1 < layerEnd && isOutOfBudget()) {
+                outOfBudget = true;
+                break;
+            }
         }
 
         return maxEcc;
     }
 
+    /**
+     * Returns the BFS from <var>v</var>, whose visit order holds the layers of <var>v</var> one after the
+     * other. It is the BFS of {@link #run(Object, int, int)} when <var>v</var> is u, so the layers of u
+     * never need another traversal.
+     */
+    private CSRBFS getLevels(int v) {
+        if (levels == null || levels.getReached(0) != v) {
+            setLevels(new CSRBFS(csr, v));
+            numLayeredBFS++;
+        }
+        return levels;
+    }
+
+    /**
+     * Makes <var>bfs</var> the levels that are scanned, and bounds the probes of their vertices by it. On an
+     * undirected graph the layers are in the component of the source, and ecc(x) &lt;= d(x, source) +
+     * ecc(source). On a directed graph the layers are still probed, but every vertex may be reachable and
+     * no eccentricity is bounded. The bounds of u are restored when its layers are scanned again.
+     */
+    private void setLevels(CSRBFS bfs) {
+        levels = bfs;
+        if (g.getType().isDirected()) {
+            reachable = indexer.size();
+            eccOffset = Integer.MAX_VALUE / 2;
+        } else {
+            reachable = bfs.getNumReached();
+            eccOffset = bfs.getEcc();
+        }
+    }
+
     public int getNumBFS() {
         return numBFS;
     }
@@ -0,0 +1,35 @@
+package algorithms;
+
+import algorithms.CompressedSparseRow.CSRGraph;
+
+/**
+ * A directed graph over the indices <code>0, ..., numNodes() - 1</code>, read one successor list at a
+ * time. The successors of <var>v</var> are
+ * <code>successorArray(v)[successorOffset(v)], ..., successorArray(v)[successorOffset(v) + outdegree(v) - 1]</code>:
+ * a {@link CSRGraph} returns its targets array, so its lists are never copied, while a compressed graph
+ * decodes each list into an array of its own. The array is read first, then the offset and the outdegree of
+ * the same node.
+ * <p>
+ * An implementation may keep state between these calls, so an instance is read by one thread at a time;
+ * {@link #copy()} returns an instance for another thread.
+ */
+public interface IndexedGraph {
+    int numNodes();
+
+    /**
+     * @return an array holding the successors of <var>v</var>, from position {@link #successorOffset(int)} on
+     */
+    int[] successorArray(int v);
+
+    /**
+     * @return the position of the first successor of <var>v</var> in {@link #successorArray(int)}
+     */
+    int successorOffset(int v);
+
+    int outdegree(int v);
+
+    /**
+     * @return an instance over the same graph, to be read by another thread
+     */
+    IndexedGraph copy();
+}
@@ -0,0 +1,154 @@
+package algorithms;
+
+import it.unimi.dsi.fastutil.ints.IntComparator;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A binary heap of the vertices <code>0, ..., n - 1</code>, ordered by a comparator that reads the
+ * current keys of the vertices (e.g. bounds on their eccentricities) from outside the heap.
+ * The position of every vertex in the heap is kept, so a vertex can be removed, or moved after its
+ * keys have changed, in O(log n) time.
+ * <p>
+ * Vertices that compare as equal are ordered by index, smallest first, so that the first vertex is the
+ * same that a linear scan keeping the first best vertex would find.
+ */
+public class IndexedVertexHeap {
+    private final IntComparator comparator;
+    /** The vertices in the heap, in heap order. */
+    private final int[] heap;
+    /** The position of each vertex in <var>heap</var>, or -1 if it is not in the heap. */
+    private final int[] position;
+    private int size;
+
+    /**
+     * Creates a heap containing the given vertices.
+     *
+     * @param n
+     *            the number of vertices
+     * @param members
+     *            the vertices initially in the heap
+     * @param comparator
+     *            the order of the vertices: the first vertex is the smallest one
+     */
+    public IndexedVertexHeap(final int n, final BitSet members, final IntComparator comparator) {
+        this.comparator = comparator;
+        heap = new int[n];
+        position = new int[n];
+        reset(members);
+    }
+
+    /**
+     * Replaces the content of the heap with the given vertices, in linear time.
+     */
+    public void reset(final BitSet members) {
+        Arrays.fill(position, -1);
+        size = 0;
+        for (int v = members.nextSetBit(0); v >= 0 && v < heap.length; v = members.nextSetBit(v + 1)) {
+            heap[size] = v;
+            position[v] = size++;
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(final int v) {
+        return position[v] != -1;
+    }
+
+    /**
+     * @return the smallest vertex, or -1 if the heap is empty
+     */
+    public int first() {
+        return size == 0 ? -1 : heap[0];
+    }
+
+    public void add(final int v) {
+        if (position[v] != -1) {
+            return;
+        }
+        heap[size] = v;
+        position[v] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Removes a vertex, if it is in the heap.
+     */
+    public void remove(final int v) {
+        final int i = position[v];
+        if (i == -1) {
+            return;
+        }
+        position[v] = -1;
+        if (i == --size) {
+            return;
+        }
+        final int moved = heap[size];
+        heap[i] = moved;
+        position[moved] = i;
+        siftDown(i);
+        siftUp(position[moved]);
+    }
+
+    /**
+     * Moves a vertex to its place after its keys have changed, if it is in the heap.
+     * The keys of all the other vertices in the heap must be unchanged since their last move.
+     */
+    public void changed(final int v) {
+        final int i = position[v];
+        if (i == -1) {
+            return;
+        }
+        siftUp(i);
+        siftDown(position[v]);
+    }
+
+    private boolean less(final int a, final int b) {
+        final int c = comparator.compare(a, b);
+        return c < 0 || (c == 0 && a < b);
+    }
+
+    private void siftUp(int i) {
+        final int v = heap[i];
+        while (i > 0) {
+            final int parent = (i - 1) >>> 1;
+            if (!less(v, heap[parent])) {
+                break;
+            }
+            heap[i] = heap[parent];
+            position[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = v;
+        position[v] = i;
+    }
+
+    private void siftDown(int i) {
+        final int v = heap[i];
+        int child;
+        while ((child = 2 * i + 1) < size) {
+            if (child + 1 < size && less(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!less(heap[child], v)) {
+                break;
+            }
+            heap[i] = heap[child];
+            position[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = v;
+        position[v] = i;
+    }
+}
@@ -1,8 +1,9 @@
 package algorithms;
 
-import org.jgrapht.Graph;
+import algorithms.CompressedSparseRow.CSRBFS;
+import algorithms.CompressedSparseRow.CSRGraph;
+import algorithms.CompressedSparseRow.VertexIndexer;
 import org.jgrapht.graph.AbstractBaseGraph;
-import org.jgrapht.graph.EdgeReversedGraph;
 
 import java.util.*;
 
@@ -18,7 +19,9 @@ public class RodittyVirginia<V,E> extends Diameter_Algorithm<V, E> {
     @Override
     public Integer run() {
         numBFS = 0;
-        Graph<V,E> reverse = new EdgeReversedGraph<>(super.getGraph());
+        VertexIndexer<V> indexer = new VertexIndexer<>(super.getGraph());
+        CSRGraph csr = CSRGraph.fromGraph(super.getGraph(), indexer);
+        CSRGraph reverse = csr.transpose();
         int maxEcc = 0;
 
         // Compute Hitting Set of size n/s * log(n)
@@ -36,29 +39,26 @@ public class RodittyVirginia<V,E> extends Diameter_Algorithm<V, E> {
 
         // Compute BFS from hitting set
         for (V v : hittingSet) {
-            BFS<V,E> bfs = new BFS<>(super.getGraph(), v);
+            BFS<V,E> bfs = new BFS<>(csr, indexer, v);
             maxEcc = Math.max(maxEcc, bfs.getEcc());
             numBFS++;
         }
 
-        // Create a new graph to find vertex furthest from hitting set
-        Graph <V,E> extendedGraph = new EdgeReversedGraph<>(super.getGraph());
-        V r = (V) new Integer(121891731);
-        extendedGraph.addVertex(r);
+        // Find vertex furthest from hitting set, with a BFS on the reverse graph that starts from all of it
+        int[] sources = new int[hittingSet.size()];
+        int i = 0;
         for (V u : hittingSet) {
-            extendedGraph.addEdge(r ,u);
+            sources[i++] = indexer.indexOf(u);
         }
-
-        // Find vertex furthest from hitting set
-        BFS<V,E> bfs = new BFS<>(extendedGraph, r);
+        CSRBFS bfs = new CSRBFS(reverse, sources);
         numBFS++;
-        V w = bfs.getFurthest();
+        V w = indexer.vertexAt(bfs.getFurthest());
 
         // Compute BFS_in from every vertex in N_s(w)
         NeighborsBFS<V,E> neighborsBFS = new NeighborsBFS<>(super.getGraph(), w, s);
 
         for (V v : neighborsBFS.getNeighbors()) {
-            BFS<V,E> reverseBFS = new BFS<V,E>(reverse, v);
+            BFS<V,E> reverseBFS = new BFS<V,E>(reverse, indexer, v);
             maxEcc = Math.max(maxEcc, reverseBFS.getEcc());
             numBFS++;
         }
@@ -0,0 +1,118 @@
+package algorithms.StrongConnectivity;
+
+import algorithms.CompressedSparseRow.CSRGraph;
+
+import java.util.Arrays;
+
+/**
+ * The strongly connected components of a {@link CSRGraph}, computed by an iterative version of Tarjan's
+ * algorithm that keeps all of its state in int arrays: no set of vertices, map or graph object is ever
+ * built, and the depth of the visit is not limited by the call stack.
+ * <p>
+ * The components are numbered in a topological order of their DAG: every arc between two components goes
+ * from a smaller to a larger number.
+ */
+public class CSRStrongConnectivity {
+    private final CSRGraph graph;
+    private final int numComponents;
+    /** The component of each vertex. */
+    private final int[] component;
+
+    public CSRStrongConnectivity(final CSRGraph graph) {
+        this.graph = graph;
+        final int n = graph.numNodes();
+        final int[] offsets = graph.offsets();
+        final int[] targets = graph.targets();
+
+        component = new int[n];
+        Arrays.fill(component, -1);
+        /* The visit order of each vertex, or -1 if it was not visited yet. */
+        final int[] index = new int[n];
+        Arrays.fill(index, -1);
+        /* The smallest visit order reachable from the subtree of each vertex, through at most one back arc. */
+        final int[] low = new int[n];
+        /* The next arc to follow out of each vertex on the call stack. */
+        final int[] nextArc = new int[n];
+        /* The vertices visited whose component is not found yet; they are the ones with component -1. */
+        final int[] stack = new int[n];
+        /* The path of the visit, replacing the recursion. */
+        final int[] callStack = new int[n];
+
+        int counter = 0, sp = 0, cp = 0, found = 0;
+        int v, w;
+        for (int root = 0; root < n; root++) {
+            if (index[root] != -1) {
+                continue;
+            }
+            index[root] = low[root] = counter++;
+            nextArc[root] = offsets[root];
+            stack[sp++] = root;
+            callStack[cp++] = root;
+
+            while (cp > 0) {
+                v = callStack[cp - 1];
+                if (nextArc[v] < offsets[v + 1]) {
+                    w = targets[nextArc[v]++];
+                    if (index[w] == -1) {
+                        index[w] = low[w] = counter++;
+                        nextArc[w] = offsets[w];
+                        stack[sp++] = w;
+                        callStack[cp++] = w;
+                    } else if (component[w] == -1 && index[w] < low[v]) {
+                        // w is on the stack, so it is in the component of an ancestor of v
+                        low[v] = index[w];
+                    }
+                    continue;
+                }
+
+                cp--;
+                if (low[v] == index[v]) {
+                    do {
+                        w = stack[--sp];
+                        component[w] = found;
+                    } while (w != v);
+                    found++;
+                }
+                if (cp > 0 && low[v] < low[callStack[cp - 1]]) {
+                    low[callStack[cp - 1]] = low[v];
+                }
+            }
+        }
+
+        // Tarjan's algorithm finds a component after all the components it reaches
+        numComponents = found;
+        for (int x = 0; x < n; x++) {
+            component[x] = numComponents - 1 - component[x];
+        }
+    }
+
+    public int numComponents() {
+        return numComponents;
+    }
+
+    /**
+     * @return the component of each vertex, between 0 and {@link #numComponents()} - 1; the array must
+     * not be modified
+     */
+    public int[] components() {
+        return component;
+    }
+
+    /**
+     * @return the number of vertices of each component, in topological order
+     */
+    public int[] componentSizes() {
+        final int[] sizes = new int[numComponents];
+        for (int c : component) {
+            sizes[c]++;
+        }
+        return sizes;
+    }
+
+    /**
+     * @return the DAG of the components, with one arc of the graph for each pair of adjacent components
+     */
+    public SCCCondensation condensation() {
+        return new SCCCondensation(graph, component, numComponents);
+    }
+}
@@ -0,0 +1,275 @@
+package algorithms.StrongConnectivity;
+
+import algorithms.IndexedGraph;
+
+import java.util.Arrays;
+
+/**
+ * The strongly connected components of an {@link IndexedGraph}, and the DAG between them, kept in int arrays.
+ * <p>
+ * The members of each component and the arcs of the DAG are stored in CSR form. Every arc of the DAG
+ * (from component <var>c</var> to component <var>d</var>) comes with one corresponding arc of the graph,
+ * from a vertex of <var>c</var> to a vertex of <var>d</var>: among all the candidates, the one whose source
+ * has the largest total degree. The components are also sorted in a topological order of the DAG.
+ */
+public class SCCCondensation {
+    private final int numComponents;
+    /** The component of each vertex. */
+    private final int[] component;
+
+    /** The members of component <var>c</var> are <code>members[memberOffsets[c]], ..., members[memberOffsets[c + 1] - 1]</code>. */
+    private final int[] memberOffsets;
+    private final int[] members;
+
+    /** The arcs out of component <var>c</var> are the arcs <code>arcOffsets[c], ..., arcOffsets[c + 1] - 1</code>. */
+    private final int[] arcOffsets;
+    /** The target component of each arc of the DAG. */
+    private final int[] arcTargets;
+    /** The source vertex of the arc of the graph corresponding to each arc of the DAG. */
+    private final int[] arcSourceVertices;
+    /** The target vertex of the arc of the graph corresponding to each arc of the DAG. */
+    private final int[] arcTargetVertices;
+
+    /** The arcs into component <var>c</var> are <code>inArcs[inArcOffsets[c]], ..., inArcs[inArcOffsets[c + 1] - 1]</code>. */
+    private final int[] inArcOffsets;
+    /** The indices of the arcs into each component, grouped by target component. */
+    private final int[] inArcs;
+
+    /** The components, sorted so that every arc of the DAG goes forward. */
+    private final int[] topologicalOrder;
+
+    /**
+     * Builds the condensation of a graph, given the component of each vertex.
+     *
+     * @param graph
+     *            the graph
+     * @param component
+     *            the component of each vertex, between 0 and <var>numComponents</var> - 1
+     * @param numComponents
+     *            the number of components
+     */
+    public SCCCondensation(final IndexedGraph graph, final int[] component, final int numComponents) {
+        if (component.length != graph.numNodes()) {
+            throw new IllegalArgumentException("There must be exactly one component for each vertex.");
+        }
+        this.numComponents = numComponents;
+        this.component = component;
+        final int n = graph.numNodes();
+
+        // the members of each component, by counting sort
+        memberOffsets = new int[numComponents + 1];
+        for (int v = 0; v < n; v++) {
+            memberOffsets[component[v] + 1]++;
+        }
+        for (int c = 0; c < numComponents; c++) {
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        members = new int[n];
+        final int[] position = Arrays.copyOf(memberOffsets, numComponents);
+        for (int v = 0; v < n; v++) {
+            members[position[component[v]]++] = v;
+        }
+
+        // the arcs out of each component, visiting the members of one component at a time
+        // only the indegrees are needed here, not the whole transpose
+        final int[] indegree = new int[n];
+        for (int v = 0; v < n; v++) {
+            final int[] successors = graph.successorArray(v);
+            final int first = graph.successorOffset(v), last = first + graph.outdegree(v);
+            for (int j = first; j < last; j++) {
+                indegree[successors[j]]++;
+            }
+        }
+        final int[] arcOf = new int[numComponents];
+        final int[] seenFrom = new int[numComponents];
+        Arrays.fill(seenFrom, -1);
+
+        int[] arcTargets = new int[16], arcSources = new int[16], arcEnds = new int[16];
+        long[] arcScores = new long[16];
+        int numArcs = 0;
+        arcOffsets = new int[numComponents + 1];
+
+        for (int c = 0; c < numComponents; c++) {
+            arcOffsets[c] = numArcs;
+            for (int i = memberOffsets[c]; i < memberOffsets[c + 1]; i++) {
+                final int u = members[i];
+                final int[] successors = graph.successorArray(u);
+                final int first = graph.successorOffset(u), last = first + graph.outdegree(u);
+                final long score = (long) (last - first) + indegree[u];
+                for (int j = first; j < last; j++) {
+                    final int w = successors[j];
+                    final int d = component[w];
+                    if (d == c) {
+                        continue;
+                    }
+
+                    if (seenFrom[d] != c) {
+                        seenFrom[d] = c;
+                        if (numArcs == arcTargets.length) {
+                            arcTargets = Arrays.copyOf(arcTargets, 2 * numArcs);
+                            arcSources = Arrays.copyOf(arcSources, 2 * numArcs);
+                            arcEnds = Arrays.copyOf(arcEnds, 2 * numArcs);
+                            arcScores = Arrays.copyOf(arcScores, 2 * numArcs);
+                        }
+                        arcOf[d] = numArcs;
+                        arcTargets[numArcs] = d;
+                        arcSources[numArcs] = u;
+                        arcEnds[numArcs] = w;
+                        arcScores[numArcs] = score;
+                        numArcs++;
+                    } else if (score > arcScores[arcOf[d]]) {
+                        arcSources[arcOf[d]] = u;
+                        arcEnds[arcOf[d]] = w;
+                        arcScores[arcOf[d]] = score;
+                    }
+                }
+            }
+        }
+        arcOffsets[numComponents] = numArcs;
+
+        this.arcTargets = Arrays.copyOf(arcTargets, numArcs);
+        this.arcSourceVertices = Arrays.copyOf(arcSources, numArcs);
+        this.arcTargetVertices = Arrays.copyOf(arcEnds, numArcs);
+
+        // the arcs into each component, by counting sort
+        inArcOffsets = new int[numComponents + 1];
+        for (int a = 0; a < numArcs; a++) {
+            inArcOffsets[this.arcTargets[a] + 1]++;
+        }
+        for (int c = 0; c < numComponents; c++) {
+            inArcOffsets[c + 1] += inArcOffsets[c];
+        }
+        inArcs = new int[numArcs];
+        System.arraycopy(inArcOffsets, 0, position, 0, numComponents);
+        for (int a = 0; a < numArcs; a++) {
+            inArcs[position[this.arcTargets[a]]++] = a;
+        }
+
+        // a topological order, by Kahn's algorithm
+        topologicalOrder = new int[numComponents];
+        final int[] inDegree = new int[numComponents];
+        for (int c = 0; c < numComponents; c++) {
+            inDegree[c] = inArcOffsets[c + 1] - inArcOffsets[c];
+        }
+        int head = 0, tail = 0;
+        for (int c = 0; c < numComponents; c++) {
+            if (inDegree[c] == 0) {
+                topologicalOrder[tail++] = c;
+            }
+        }
+        while (head < tail) {
+            final int c = topologicalOrder[head++];
+            for (int a = arcOffsets[c]; a < arcOffsets[c + 1]; a++) {
+                if (--inDegree[this.arcTargets[a]] == 0) {
+                    topologicalOrder[tail++] = this.arcTargets[a];
+                }
+            }
+        }
+        if (tail != numComponents) {
+            throw new IllegalArgumentException("The components are not strongly connected components: their graph has a cycle.");
+        }
+    }
+
+    public int numComponents() {
+        return numComponents;
+    }
+
+    /**
+     * @return the component of <var>v</var>
+     */
+    public int component(final int v) {
+        return component[v];
+    }
+
+    /**
+     * @return the component of each vertex; the array must not be modified
+     */
+    public int[] components() {
+        return component;
+    }
+
+    public int memberStart(final int c) {
+        return memberOffsets[c];
+    }
+
+    public int memberEnd(final int c) {
+        return memberOffsets[c + 1];
+    }
+
+    /**
+     * @return the <var>i</var>-th vertex in the concatenation of the members of all components
+     */
+    public int member(final int i) {
+        return members[i];
+    }
+
+    public int componentSize(final int c) {
+        return memberOffsets[c + 1] - memberOffsets[c];
+    }
+
+    public int numArcs() {
+        return arcTargets.length;
+    }
+
+    /**
+     * @return the first arc out of component <var>c</var>
+     */
+    public int arcStart(final int c) {
+        return arcOffsets[c];
+    }
+
+    /**
+     * @return the arc after the last arc out of component <var>c</var>
+     */
+    public int arcEnd(final int c) {
+        return arcOffsets[c + 1];
+    }
+
+    public int arcTarget(final int a) {
+        return arcTargets[a];
+    }
+
+    /**
+     * @return the source vertex of the arc of the graph corresponding to arc <var>a</var> of the DAG
+     */
+    public int arcSourceVertex(final int a) {
+        return arcSourceVertices[a];
+    }
+
+    /**
+     * @return the target vertex of the arc of the graph corresponding to arc <var>a</var> of the DAG
+     */
+    public int arcTargetVertex(final int a) {
+        return arcTargetVertices[a];
+    }
+
+    public int inArcStart(final int c) {
+        return inArcOffsets[c];
+    }
+
+    public int inArcEnd(final int c) {
+        return inArcOffsets[c + 1];
+    }
+
+    /**
+     * @return the index of the <var>i</var>-th arc in the concatenation of the arcs into all components
+     */
+    public int inArc(final int i) {
+        return inArcs[i];
+    }
+
+    /**
+     * @return the source component of arc <var>a</var> of the DAG
+     */
+    public int arcSource(final int a) {
+        return component[arcSourceVertices[a]];
+    }
+
+    /**
+     * @return the components, sorted so that every arc of the DAG goes from an earlier to a later one;
+     * the array must not be modified
+     */
+    public int[] topologicalOrder() {
+        return topologicalOrder;
+    }
+}
@@ -2,6 +2,7 @@ package algorithms.StrongConnectivity;
 
 import it.unimi.dsi.fastutil.ints.IntIntImmutablePair;
 import it.unimi.dsi.fastutil.ints.IntIntPair;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import org.jgrapht.Graph;
 import org.jgrapht.alg.connectivity.KosarajuStrongConnectivityInspector;
 import org.jgrapht.graph.SimpleDirectedGraph;
@@ -45,40 +46,43 @@ public class StrongConnectivityCondenser<V, E> extends KosarajuStrongConnectivit
     }
 
 
+    /**
+     * Chooses, for each pair of distinct components joined by at least one edge, one of the edges between them.
+     * The edges are visited in a single pass, keeping for each pair only the best edge so far, so that the memory
+     * used is proportional to the number of edges of the condensation.
+     *
+     * @param comparator
+     *            the edge kept for a pair is the maximum according to it; if null, the first edge found is kept
+     * @return the edge chosen for each pair of component numbers, sorted by the pairs
+     */
     public Map<IntIntPair, E> getCorrespondingEdges(Comparator<E> comparator) {
         final Map<V, Integer> vertexToComponent = vertexToComponentNumber();
 
-        final Map<IntIntPair, E> correspondingEdges = new TreeMap<>((o1, o2) -> {
-            int temp;
-            if ((temp = o1.firstInt() - o2.firstInt()) == 0) return o1.secondInt() - o2.secondInt();
-            return temp;
-        });
-
+        final Long2ObjectOpenHashMap<E> bestEdges = new Long2ObjectOpenHashMap<>();
         for (E edge : graph.iterables().edges()) {
-            V source = graph.getEdgeSource(edge);
-            V target = graph.getEdgeTarget(edge);
-            int sourceComponent = vertexToComponent.get(source);
-            int targetComponent = vertexToComponent.get(target);
-
-            if (sourceComponent == targetComponent)  {
+            final int sourceComponent = vertexToComponent.get(graph.getEdgeSource(edge));
+            final int targetComponent = vertexToComponent.get(graph.getEdgeTarget(edge));
+            if (sourceComponent == targetComponent) {
                 continue;
             }
 
-
-            var componentsEdge = new IntIntImmutablePair(sourceComponent, targetComponent);
-            if (!correspondingEdges.containsKey(componentsEdge)) {
-                correspondingEdges.put(componentsEdge, edge);
-            } else if (comparator != null) {
-                E currentBestEdge = correspondingEdges.get(componentsEdge);
-
-                if (comparator.compare(edge, currentBestEdge) > 0) {
-                    correspondingEdges.put(componentsEdge, edge);
-                }
+            final long componentsEdge = (long) sourceComponent << 32 | targetComponent;
+            final E currentBestEdge = bestEdges.putIfAbsent(componentsEdge, edge);
+            if (currentBestEdge != null && comparator != null && comparator.compare(edge, currentBestEdge) > 0) {
+                bestEdges.put(componentsEdge, edge);
             }
         }
 
-        return correspondingEdges;
+        // the component numbers are non-negative, so the order of the packed pairs is the order of the pairs
+        final long[] componentsEdges = bestEdges.keySet().toLongArray();
+        Arrays.sort(componentsEdges);
+        final Map<IntIntPair, E> correspondingEdges = CollectionUtil.newLinkedHashMapWithExpectedSize(componentsEdges.length);
+        for (long componentsEdge : componentsEdges) {
+            correspondingEdges.put(new IntIntImmutablePair((int) (componentsEdge >>> 32), (int) componentsEdge),
+                    bestEdges.get(componentsEdge));
+        }
 
+        return correspondingEdges;
     }
 
     public Graph<Integer, IntIntPair> condense() {
@@ -1,5 +1,9 @@
 package algorithms.StrongConnectivity;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
 import org.javatuples.Pair;
 import org.jgrapht.Graph;
 import org.jgrapht.alg.connectivity.KosarajuStrongConnectivityInspector;
@@ -39,38 +43,52 @@ public class StrongConnectivityInspector<V, E> extends KosarajuStrongConnectivit
 
 
 
+    /**
+     * Chooses, for each pair of distinct components joined by at least one edge, one of the edges between them.
+     * The edges are visited in a single pass, keeping for each pair only the best edge so far, so that the memory
+     * used is proportional to the number of edges of the condensation.
+     *
+     * @param comparator
+     *            the edge kept for a pair is the maximum according to it; if null, the first edge found is kept
+     * @return the edge chosen for each pair of components, sorted by the indices of the components in
+     * {@link #getStronglyConnectedComponents()}
+     */
     public Map<Pair<Graph<V,E>, Graph<V,E>>, E> getCorrespondingEdges(Comparator<E> comparator) {
         final List<Graph<V, E>> sccSubGraphs = getStronglyConnectedComponents();
-        final Map<V, Graph<V, E>> vertexToComponent = getVertexToComponent();
-
-        final Map<Pair<Graph<V,E>, Graph<V,E>>, E> correspondingEdges = new TreeMap<>(Comparator.comparingInt(o -> o.getValue0().vertexSet().size()));
-
-        final Set<E> edgesBetweenDifferentDirectedComponents = new HashSet<>(graph.edgeSet());
-        for (Graph<V,E> sccSubGraph : sccSubGraphs) {
-            edgesBetweenDifferentDirectedComponents.removeAll(sccSubGraph.edgeSet());
+        final Object2IntOpenHashMap<V> vertexToIndex = new Object2IntOpenHashMap<>(graph.vertexSet().size());
+        final Reference2IntOpenHashMap<Graph<V, E>> componentToIndex = new Reference2IntOpenHashMap<>(sccSubGraphs.size());
+        for (int i = 0; i < sccSubGraphs.size(); i++) {
+            componentToIndex.put(sccSubGraphs.get(i), i);
+            for (V v : sccSubGraphs.get(i).vertexSet()) {
+                vertexToIndex.put(v, i);
+            }
         }
 
-        for (E edge : edgesBetweenDifferentDirectedComponents) {
-            V source = graph.getEdgeSource(edge);
-            V target = graph.getEdgeTarget(edge);
-            Graph<V, E> sourceComponent = vertexToComponent.get(source);
-            Graph<V, E> targetComponent = vertexToComponent.get(target);
-
-            assert sourceComponent != targetComponent; // a check that everything worked correctly
-
-
-            var componentsEdgeAsPair = new Pair<>(sourceComponent, targetComponent);
-            if (!correspondingEdges.containsKey(componentsEdgeAsPair)) {
-                correspondingEdges.put(componentsEdgeAsPair, edge);
-            } else if (comparator != null) {
-                E currentBestEdge = correspondingEdges.get(componentsEdgeAsPair);
+        final Long2ObjectOpenHashMap<E> bestEdges = new Long2ObjectOpenHashMap<>();
+        for (E edge : graph.iterables().edges()) {
+            final int sourceComponent = vertexToIndex.getInt(graph.getEdgeSource(edge));
+            final int targetComponent = vertexToIndex.getInt(graph.getEdgeTarget(edge));
+            if (sourceComponent == targetComponent) {
+                continue;
+            }
 
-                if (comparator.compare(edge, currentBestEdge) > 0) {
-                    correspondingEdges.put(componentsEdgeAsPair, edge);
-                }
+            final long componentsEdge = (long) sourceComponent << 32 | targetComponent;
+            final E currentBestEdge = bestEdges.putIfAbsent(componentsEdge, edge);
+            if (currentBestEdge != null && comparator != null && comparator.compare(edge, currentBestEdge) > 0) {
+                bestEdges.put(componentsEdge, edge);
             }
         }
 
+        // the components are compared by index: comparing the subgraphs themselves would visit all their edges
+        final Map<Pair<Graph<V,E>, Graph<V,E>>, E> correspondingEdges = new TreeMap<>(
+                Comparator.<Pair<Graph<V,E>, Graph<V,E>>>comparingInt(o -> componentToIndex.getInt(o.getValue0()))
+                        .thenComparingInt(o -> componentToIndex.getInt(o.getValue1())));
+        for (Long2ObjectMap.Entry<E> entry : bestEdges.long2ObjectEntrySet()) {
+            final long componentsEdge = entry.getLongKey();
+            correspondingEdges.put(new Pair<>(sccSubGraphs.get((int) (componentsEdge >>> 32)),
+                    sccSubGraphs.get((int) componentsEdge)), entry.getValue());
+        }
+
         return correspondingEdges;
     }
 
@@ -1,9 +1,10 @@
 package algorithms;
 
+import algorithms.CompressedSparseRow.CSRGraph;
+import algorithms.CompressedSparseRow.VertexIndexer;
 import org.jgrapht.Graph;
 import org.javatuples.Pair;
 import org.jgrapht.graph.AbstractBaseGraph;
-import org.jgrapht.graph.EdgeReversedGraph;
 
 import java.util.HashMap;
 import java.util.HashSet;
@@ -29,7 +30,9 @@ public class SumSweep<V,E> extends Diameter_Algorithm<V,E> {
 
 
     public Pair<Integer, Integer> sumSweep() {
-        Graph<V, E> reverseGraph = new EdgeReversedGraph<>(getGraph());
+        VertexIndexer<V> indexer = new VertexIndexer<>(getGraph());
+        CSRGraph csr = CSRGraph.fromGraph(getGraph(), indexer);
+        CSRGraph reverseCsr = csr.transpose();
 
         int n = getGraph().vertexSet().size();
 
@@ -40,20 +43,19 @@ public class SumSweep<V,E> extends Diameter_Algorithm<V,E> {
         Set<V> b = new HashSet<>();
         f.add(s);
 
-        BFS<V,E> bfs = new BFS<>(getGraph(), s);
+        BFS<V,E> bfs = new BFS<>(csr, indexer, s);
 
         int dL = bfs.getEcc();
 
         for (V x : getGraph().vertexSet()) {
-            int value;
-            try {
-                value = bfs.getDepth(x);
-            } catch (NullPointerException exception) {
-                value = 0;
-            }
-            sB.put(x, value);
+            sB.put(x, 0);
             sF.put(x, 0);
         }
+        // only the vertices reached by a BFS have their sums changed
+        for (int j = 0; j < bfs.getNumReached(); j++) {
+            V x = bfs.getReached(j);
+            sB.put(x, bfs.getDepth(x));
+        }
 
 
         for (int i = 2; i < k; i++) {
@@ -70,21 +72,13 @@ public class SumSweep<V,E> extends Diameter_Algorithm<V,E> {
                     }
                 }
                 f.add(s);
-                bfs = new BFS<>(getGraph(), s);
+                bfs = new BFS<>(csr, indexer, s);
                 dL = Math.max(dL, bfs.getEcc());
 
 
-                for (V x : getGraph().vertexSet()) {
-                    int dist = 0;
-
-                    try {
-                        dist = bfs.getDepth(x);
-                    } catch (NullPointerException exception) {
-                        dist = 0;
-                    } finally {
-                        int updatedSbVal = dist + sB.get(x);
-                        sB.replace(x, updatedSbVal);
-                    }
+                for (int j = 0; j < bfs.getNumReached(); j++) {
+                    V x = bfs.getReached(j);
+                    sB.replace(x, bfs.getDepth(x) + sB.get(x));
                 }
             }
 
@@ -102,21 +96,13 @@ public class SumSweep<V,E> extends Diameter_Algorithm<V,E> {
                 }
                 b.add(s);
 
-                bfs = new BFS<>(reverseGraph, s);
+                bfs = new BFS<>(reverseCsr, indexer, s);
                 dL = Math.max(dL, bfs.getEcc());
 
 
-                for (V x : getGraph().vertexSet()) {
-                    int dist = 0;
-
-                    try {
-                        dist = bfs.getDepth(x);
-                    } catch (NullPointerException exception) {
-                        dist = 0;
-                    } finally {
-                        int updatedSfVal = dist + sF.get(x);
-                        sF.replace(x, updatedSfVal);
-                    }
+                for (int j = 0; j < bfs.getNumReached(); j++) {
+                    V x = bfs.getReached(j);
+                    sF.replace(x, bfs.getDepth(x) + sF.get(x));
                 }
             }
         }
@@ -142,7 +128,7 @@ public class SumSweep<V,E> extends Diameter_Algorithm<V,E> {
             }
         }
 
-        bfs = new BFS<>(getGraph(), s);
+        bfs = new BFS<>(csr, indexer, s);
         int rU = bfs.getEcc();
 
         return new Pair<>(dL, rU);
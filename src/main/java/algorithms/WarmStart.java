@@ -0,0 +1,203 @@
+package algorithms;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * What a diameter computation on a snapshot of a graph learned that can guide the computation on the next
+ * snapshot: the eccentricities it found, a diametral and a radial vertex, and the sources of its most
+ * useful BFSs. Vertices are identified by their node IDs.
+ * <p>
+ * None of these values is a bound on the next snapshot, whose arcs are different: they are only used to
+ * choose the first BFSs, whose results are then used as usual.
+ */
+public class WarmStart {
+    /** The first value of a warm start file. */
+    private static final long MAGIC = 0x4553535741524d31L;
+
+    /** The forward eccentricity of each node, or -1 if it is not known. */
+    private final int[] eccF;
+    /** The backward eccentricity of each node, or -1 if it is not known. */
+    private final int[] eccB;
+    /** A node whose eccentricity was the diameter, or -1. */
+    private final int diametralVertex;
+    /** Whether the eccentricity of <var>diametralVertex</var> that was the diameter is the forward one. */
+    private final boolean diametralForward;
+    /** A node whose forward eccentricity was the radius, or -1. */
+    private final int radialVertex;
+    /** The sources of the BFSs worth repeating, most useful first: <var>v</var> for a forward BFS from <var>v</var>, and <code>~<var>v</var></code> for a backward one. */
+    private final int[] sources;
+
+    /**
+     * @param eccF
+     *            the forward eccentricity of each node, or -1 if it is not known
+     * @param eccB
+     *            the backward eccentricity of each node, or -1 if it is not known
+     * @param diametralVertex
+     *            a node whose eccentricity was the diameter, or -1
+     * @param diametralForward
+     *            whether the eccentricity of <var>diametralVertex</var> that was the diameter is the forward one
+     * @param radialVertex
+     *            a node whose forward eccentricity was the radius, or -1
+     * @param sources
+     *            the sources of the BFSs worth repeating, most useful first, as built by {@link #source(int, boolean)}
+     */
+    public WarmStart(int[] eccF, int[] eccB, int diametralVertex, boolean diametralForward, int radialVertex, int[] sources) {
+        if (eccF.length != eccB.length) {
+            throw new IllegalArgumentException("There must be a forward and a backward eccentricity for each node.");
+        }
+        this.eccF = eccF;
+        this.eccB = eccB;
+        this.diametralVertex = diametralVertex;
+        this.diametralForward = diametralForward;
+        this.radialVertex = radialVertex;
+        this.sources = sources;
+    }
+
+    /**
+     * @return the encoding of a BFS source in {@link #getSource(int)}
+     */
+    public static int source(int v, boolean forward) {
+        return forward ? v : ~v;
+    }
+
+    /**
+     * @return the number of nodes of the snapshot
+     */
+    public int numNodes() {
+        return eccF.length;
+    }
+
+    /**
+     * @return the forward eccentricity of <var>v</var>, or -1 if it is not known
+     */
+    public int getForwardEccentricity(int v) {
+        return v >= 0 && v < eccF.length ? eccF[v] : -1;
+    }
+
+    /**
+     * @return the backward eccentricity of <var>v</var>, or -1 if it is not known
+     */
+    public int getBackwardEccentricity(int v) {
+        return v >= 0 && v < eccB.length ? eccB[v] : -1;
+    }
+
+    public int getDiametralVertex() {
+        return diametralVertex;
+    }
+
+    public boolean isDiametralForward() {
+        return diametralForward;
+    }
+
+    public int getRadialVertex() {
+        return radialVertex;
+    }
+
+    public int numSources() {
+        return sources.length;
+    }
+
+    /**
+     * @return the <var>i</var>-th source: <var>v</var> for a forward BFS from <var>v</var>, and
+     * <code>~<var>v</var></code> for a backward one
+     */
+    public int getSource(int i) {
+        return sources[i];
+    }
+
+    /**
+     * @return the node of largest forward (or backward) eccentricity, or -1 if no eccentricity is known
+     */
+    public int getPeripheralVertex(boolean forward) {
+        final int[] ecc = forward ? eccF : eccB;
+        int argMax = -1;
+        for (int v = 0; v < ecc.length; v++) {
+            if (ecc[v] >= 0 && (argMax == -1 || ecc[v] > ecc[argMax])) {
+                argMax = v;
+            }
+        }
+        return argMax;
+    }
+
+    /**
+     * Translates the node IDs to those of another snapshot. The nodes that are mapped outside
+     * <code>0, ..., <var>numNodes</var> - 1</code> are dropped.
+     *
+     * @param idMap
+     *            maps each node ID of this snapshot to the ID of the same node in the other one, or to -1
+     * @param numNodes
+     *            the number of nodes of the other snapshot
+     * @return the warm start on the other snapshot
+     */
+    public WarmStart remap(IntUnaryOperator idMap, int numNodes) {
+        final int[] newEccF = new int[numNodes], newEccB = new int[numNodes];
+        Arrays.fill(newEccF, -1);
+        Arrays.fill(newEccB, -1);
+        for (int v = 0; v < eccF.length; v++) {
+            final int w = map(idMap, v, numNodes);
+            if (w != -1) {
+                newEccF[w] = eccF[v];
+                newEccB[w] = eccB[v];
+            }
+        }
+
+        final int[] newSources = new int[sources.length];
+        int numSources = 0;
+        for (int source : sources) {
+            final boolean forward = source >= 0;
+            final int w = map(idMap, forward ? source : ~source, numNodes);
+            if (w != -1) {
+                newSources[numSources++] = source(w, forward);
+            }
+        }
+
+        return new WarmStart(newEccF, newEccB, map(idMap, diametralVertex, numNodes), diametralForward,
+                map(idMap, radialVertex, numNodes), Arrays.copyOf(newSources, numSources));
+    }
+
+    private static int map(IntUnaryOperator idMap, int v, int numNodes) {
+        if (v == -1) {
+            return -1;
+        }
+        final int w = idMap.applyAsInt(v);
+        return w >= 0 && w < numNodes ? w : -1;
+    }
+
+    /**
+     * Saves the warm start to a file, to be read by {@link #load(Path)} when the next snapshot is processed.
+     */
+    public void save(Path file) throws IOException {
+        try (CheckpointFile out = CheckpointFile.create(file)) {
+            out.writeLongs(MAGIC, eccF.length, diametralVertex, diametralForward ? 1 : 0, radialVertex,
+                    sources.length);
+            out.writeInts(eccF);
+            out.writeInts(eccB);
+            out.writeInts(sources);
+        }
+    }
+
+    /**
+     * @throws IOException
+     *             if the file cannot be read, or it is not a warm start file
+     */
+    public static WarmStart load(Path file) throws IOException {
+        try (CheckpointFile in = CheckpointFile.open(file)) {
+            if (in.readLong() != MAGIC) {
+                throw new IOException(file + " is not a warm start file.");
+            }
+            final int numNodes = (int) in.readLong();
+            final int diametralVertex = (int) in.readLong();
+            final boolean diametralForward = in.readLong() != 0;
+            final int radialVertex = (int) in.readLong();
+            final int[] eccF = new int[numNodes], eccB = new int[numNodes];
+            final int[] sources = new int[(int) in.readLong()];
+            in.readInts(eccF);
+            in.readInts(eccB);
+            in.readInts(sources);
+            return new WarmStart(eccF, eccB, diametralVertex, diametralForward, radialVertex, sources);
+        }
+    }
+}
@@ -3,10 +3,11 @@ package algorithmsForWebGraphs;
 import algorithms.Arbitrary_Vertex;
 import algorithms.BFS;
 import algorithms.VertexChooser;
+import buildOffsetForDataset.GraphStore;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntIntPair;
 import it.unimi.dsi.webgraph.ImmutableGraph;
 import it.unimi.dsi.webgraph.NodeIterator;
-import it.unimi.dsi.webgraph.Transform;
 import org.jgrapht.Graph;
 import org.jgrapht.graph.AbstractBaseGraph;
 import org.jgrapht.graph.EdgeReversedGraph;
@@ -20,11 +21,20 @@ public class ApproxDiamSparseForWebGraphs {
     private int numBFS = 0;
     private final ImmutableGraph g;
     private final ImmutableGraph reverse;
+    /** The number of arcs of <var>g</var>, or -1 if they were not counted yet. */
+    private long numArcs = -1;
 
     public ApproxDiamSparseForWebGraphs(ImmutableGraph g, int h) {
+        this(g, GraphStore.transpose(g), h);
+    }
+
+    /**
+     * @param reverse the transpose of <var>g</var>
+     */
+    public ApproxDiamSparseForWebGraphs(ImmutableGraph g, ImmutableGraph reverse, int h) {
         this.g = g;
         this.h = h;
-        this.reverse = Transform.transpose(g);
+        this.reverse = reverse;
     }
 
     public ApproxDiamSparseForWebGraphs(ImmutableGraph g) {
@@ -32,7 +42,7 @@ public class ApproxDiamSparseForWebGraphs {
     }
 
     public Integer run(int minDegree) {
-        LinkedList<Integer> H = new LinkedList<>();
+        IntArrayList H = new IntArrayList();
         int maxEcc = 0;
 
         // Compute H
@@ -45,26 +55,28 @@ public class ApproxDiamSparseForWebGraphs {
             }
         }
 
-        // Compute BFS from every vertex in H
-        int i = 1;
+        // Compute BFS from every vertex in H, a batch of sources at a time
         int hSize = H.size();
-        for (Integer v : H) {
+        int[] hArray = H.toIntArray();
+
+        for (int from = 0; from < hSize; from += MultiSourceBFS.BATCH_SIZE) {
             long start = System.nanoTime();
 
-            maxEcc = Math.max(maxEcc, WebGraphBFS.calculateEccentricity(g, v));
-            numBFS++;
+            int batchSize = Math.min(MultiSourceBFS.BATCH_SIZE, hSize - from);
+            maxEcc = Math.max(maxEcc, MultiSourceBFS.run(g, hArray, from, batchSize, false).getMaxEccentricity());
+            numBFS += batchSize;
 
             long timeElapsed = System.nanoTime() - start;
             long millisElapsed = timeElapsed / 1_000_000;
             double seccondsElapsed = ((double)millisElapsed) / 1_000;
-            System.out.println("finished " + i++ + " / " + hSize + " from H after " + seccondsElapsed + " secconds");
+            System.out.println("finished " + (from + batchSize) + " / " + hSize + " from H after " + seccondsElapsed + " secconds");
 
         }
 
         // Find vertex furthest from hitting set
         long start = System.nanoTime();
 
-        WebGraphBFS.BFSResult bfsResult = WebGraphBFS.bfsFromQueue(reverse, H);
+        WebGraphBFS.BFSResult bfsResult = WebGraphBFS.bfsFromSources(reverse, H);
         numBFS++;
         Integer w = bfsResult.getFurthestVertex();
         int dist = bfsResult.getMaxDepth();
@@ -79,7 +91,7 @@ public class ApproxDiamSparseForWebGraphs {
         // Compute BFS_out from w
         start = System.nanoTime();
 
-        int bfsOutEcc = WebGraphBFS.calculateEccentricity(g, w);
+        int bfsOutEcc = WebGraphBFS.calculateEccentricity(g, reverse, w, numArcs());
         numBFS++;
         maxEcc = Math.max(maxEcc, bfsOutEcc);
 
@@ -92,64 +104,21 @@ public class ApproxDiamSparseForWebGraphs {
         int bfsRadius = Math.min(h + 1, dist);
 
 
-        Queue<Integer> queue1 = new LinkedList<>();
-        Queue<Integer> queue2 = new LinkedList<>();
-
-        Set<Integer> visited = new HashSet<>();
-        Map<Integer, Integer> distances = new HashMap<>();
-
-        queue1.add(w);
-        queue2.add(w);
-        visited.add(w);
-        distances.put(w, 0);
-
-        int current, currentDistance, queueSize = 1;
-        while (!queue2.isEmpty()) {
-            current = queue2.poll();
-            currentDistance = distances.get(current);
-
-            if (currentDistance > bfsRadius) {
-                break;
-            }
-
-            if (currentDistance + 1 <= bfsRadius) {
-                int[] neighbors = g.successorArray(current);
-                for (int neighbor : neighbors) {
-                    if (!visited.contains(neighbor)) {
-                        visited.add(neighbor);
-                        queue2.add(neighbor);
-                        queue1.add(neighbor);
-                        distances.put(neighbor, currentDistance + 1);
-                        queueSize++;
-                    }
-                }
-            }
-        }
-        visited = null;
-        queue2 = null;
-
-        i = 1;
-        int bfsInEcc;
-        while (!queue1.isEmpty()) {
-            current = queue1.poll();
-            currentDistance = distances.get(current);
-
-            if (currentDistance > bfsRadius) { //shouldn't happen
-                break;
-            }
-
+        int[] queueArray = new LayeredBFSForWebGraphs(g, w, bfsRadius).getBall();
+        int queueSize = queueArray.length;
 
+        for (int from = 0; from < queueSize; from += MultiSourceBFS.BATCH_SIZE) {
             start = System.nanoTime();
 
-            bfsInEcc = WebGraphBFS.calculateEccentricity(reverse, current);
-            maxEcc = Math.max(maxEcc, bfsInEcc);
-            numBFS++;
+            int batchSize = Math.min(MultiSourceBFS.BATCH_SIZE, queueSize - from);
+            maxEcc = Math.max(maxEcc, MultiSourceBFS.run(reverse, queueArray, from, batchSize, false).getMaxEccentricity());
+            numBFS += batchSize;
 
 
             timeElapsed = System.nanoTime() - start;
             millisElapsed = timeElapsed / 1_000_000;
             seccondsElapsed = ((double)millisElapsed) / 1_000;
-            System.out.println("finished " + i++ + " / " + queueSize + " from queue after " + seccondsElapsed + " secconds");
+            System.out.println("finished " + (from + batchSize) + " / " + queueSize + " from queue after " + seccondsElapsed + " secconds");
 
         }
 
@@ -164,7 +133,7 @@ public class ApproxDiamSparseForWebGraphs {
         int chooserInitialNodeode = chooser.getInitialNode(adapter);
         adapter = null;
 
-        int bfsEcc = WebGraphBFS.calculateEccentricity(g, chooserInitialNodeode);
+        int bfsEcc = WebGraphBFS.calculateEccentricity(g, reverse, chooserInitialNodeode, numArcs());
 
         if (h < 0) {
             h = 2 * bfsEcc / 3;
@@ -191,6 +160,16 @@ public class ApproxDiamSparseForWebGraphs {
         return diameter;
     }
 
+    /**
+     * @return the number of arcs of <var>g</var>, counted only once if the graph does not know it
+     */
+    private long numArcs() {
+        if (numArcs == -1) {
+            numArcs = WebGraphBFS.numArcs(g);
+        }
+        return numArcs;
+    }
+
     public int getNumBFS() {
         return numBFS;
     }
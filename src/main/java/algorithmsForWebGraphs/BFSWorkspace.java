@@ -0,0 +1,143 @@
+package algorithmsForWebGraphs;
+
+import java.util.Arrays;
+
+/**
+ * The arrays used by a BFS on a graph with a given number of nodes, kept for the whole life of a thread
+ * so that consecutive BFSs do not allocate anything.
+ * <p>
+ * A node is visited in the current BFS if and only if its mark is equal to the current epoch, so
+ * {@link #reset()} starts a new BFS in constant time, without clearing the distances.
+ * The queue never wraps around, because every node enters it at most once per BFS.
+ * <p>
+ * The arrays are returned directly, for the hot loops of the BFSs in this package, and they are only
+ * valid until the next call of {@link #get(int)} on the same thread.
+ */
+public class BFSWorkspace {
+    private static final ThreadLocal<BFSWorkspace> WORKSPACES = ThreadLocal.withInitial(BFSWorkspace::new);
+
+    private int[] queue = new int[0];
+    private int[] secondQueue = new int[0];
+    private int[] distances = new int[0];
+    private int[] parents = new int[0];
+    private int[] marks = new int[0];
+    private int epoch = 0;
+
+    private long[] seen = new long[0];
+    private long[] visit = new long[0];
+    private long[] visitNext = new long[0];
+
+    private BFSWorkspace() {
+    }
+
+    /**
+     * Returns the workspace of the current thread, ready for a new BFS on a graph with
+     * <var>numNodes</var> nodes.
+     *
+     * @param numNodes the number of nodes of the graph.
+     * @return the workspace of the current thread.
+     */
+    public static BFSWorkspace get(int numNodes) {
+        BFSWorkspace workspace = WORKSPACES.get();
+        workspace.ensureCapacity(numNodes);
+        workspace.reset();
+        return workspace;
+    }
+
+    private void ensureCapacity(int numNodes) {
+        if (marks.length < numNodes) {
+            queue = new int[numNodes];
+            secondQueue = new int[numNodes];
+            distances = new int[numNodes];
+            parents = new int[numNodes];
+            marks = new int[numNodes];
+            epoch = 0;
+        }
+    }
+
+    /**
+     * Starts a new epoch, in which no node is visited.
+     */
+    private void reset() {
+        if (epoch == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            epoch = 0;
+        }
+        epoch++;
+    }
+
+    public int epoch() {
+        return epoch;
+    }
+
+    /**
+     * @return the array of marks: a node is visited if and only if its mark is equal to {@link #epoch()}.
+     */
+    public int[] marks() {
+        return marks;
+    }
+
+    /**
+     * @return the array of distances, which are meaningful only for visited nodes.
+     */
+    public int[] distances() {
+        return distances;
+    }
+
+    /**
+     * @return the array of parents in the BFS tree, which are meaningful only for visited nodes.
+     */
+    public int[] parents() {
+        return parents;
+    }
+
+    public int[] queue() {
+        return queue;
+    }
+
+    /**
+     * @return a second queue, for BFSs that keep the current and the next frontier apart.
+     */
+    public int[] secondQueue() {
+        return secondQueue;
+    }
+
+    public boolean isVisited(int v) {
+        return marks[v] == epoch;
+    }
+
+    /**
+     * @return the distance of <var>v</var>, or -1 if <var>v</var> was not visited.
+     */
+    public int distance(int v) {
+        return marks[v] == epoch ? distances[v] : -1;
+    }
+
+    /**
+     * Prepares the three bit-set arrays used by {@link MultiSourceBFS}, allocating them on the first
+     * call. The nodes already seen are cleared; the other two arrays are left empty by every run.
+     *
+     * @param numNodes the number of nodes of the graph.
+     */
+    void prepareMultiSource(int numNodes) {
+        if (seen.length < numNodes) {
+            seen = new long[numNodes];
+            visit = new long[numNodes];
+            visitNext = new long[numNodes];
+        } else {
+            Arrays.fill(seen, 0, numNodes, 0);
+        }
+    }
+
+    long[] seen() {
+        return seen;
+    }
+
+    long[] visit() {
+        return visit;
+    }
+
+    long[] visitNext() {
+        return visitNext;
+    }
+}
@@ -0,0 +1,203 @@
+package algorithmsForWebGraphs;
+
+import algorithms.BoundsListener;
+import algorithms.Budget;
+import algorithms.ExactSumSweepEngine;
+import algorithms.ExactSumSweepEngine.OutputLevel;
+import algorithms.IndexedGraph;
+import algorithms.StrongConnectivity.SCCCondensation;
+import algorithms.WarmStart;
+import buildOffsetForDataset.GraphStore;
+import it.unimi.dsi.logging.ProgressLogger;
+import it.unimi.dsi.webgraph.ImmutableGraph;
+import it.unimi.dsi.webgraph.algo.StronglyConnectedComponents;
+import org.javatuples.Pair;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.BitSet;
+
+/**
+ * The exact SumSweep algorithm (diameter, radius and all eccentricities of a directed graph) on an
+ * {@link ImmutableGraph}. The engine reads the successor lists from the graph, and the predecessor lists
+ * from its transpose, the <code>&lt;basename&gt;-t</code> stored by {@link GraphStore#build(String)} when
+ * there is one; the strongly connected components are computed by webgraph's
+ * {@link StronglyConnectedComponents}. No jgrapht object and no copy of the arcs is ever built.
+ * <p>
+ * The graph and its transpose must support random access, so they are best loaded memory-mapped. The
+ * engine keeps about 100 bytes per node in primitive arrays, and nothing per arc: about 5GB for sk-2005.
+ * Without a stored transpose, {@link GraphStore#transpose(ImmutableGraph)} builds one in memory at each run.
+ */
+public class ExactSumSweepForWebGraphs implements AutoCloseable {
+    private final IndexedGraph graph;
+    private final ExactSumSweepEngine engine;
+
+    /**
+     * @param graph
+     *            a graph.
+     * @param pl
+     *            a progress logger, or {@code null}.
+     * @param output
+     *            which output is requested: radius, diameter, radius and
+     *            diameter, or all eccentricities.
+     * @param accRadial
+     *            the set of vertices that can be considered radial vertices. If
+     *            null, the set is automatically chosen as the set of vertices
+     *            that are in the biggest strongly connected component, or that
+     *            are able to reach the biggest strongly connected component.
+     */
+    public ExactSumSweepForWebGraphs(ImmutableGraph graph, ProgressLogger pl, OutputLevel output, BitSet accRadial) {
+        this(graph, pl, output, accRadial, 1);
+    }
+
+    /**
+     * @param parallelism the number of BFSs performed at the same time; when larger than 1, the instance must
+     *                    be closed to stop the threads
+     * @throws IllegalArgumentException
+     *             if the graph or its transpose does not support random access
+     * @see #ExactSumSweepForWebGraphs(ImmutableGraph, ProgressLogger, OutputLevel, BitSet)
+     */
+    public ExactSumSweepForWebGraphs(ImmutableGraph graph, ProgressLogger pl, OutputLevel output, BitSet accRadial,
+                                     int parallelism) {
+        this.graph = new ImmutableIndexedGraph(graph);
+        final IndexedGraph transpose = new ImmutableIndexedGraph(GraphStore.transpose(graph));
+        final StronglyConnectedComponents components = StronglyConnectedComponents.compute(graph, false, pl);
+        final SCCCondensation scc = new SCCCondensation(this.graph, components.component,
+                components.numberOfComponents);
+
+        engine = new ExactSumSweepEngine(this.graph, transpose, null, scc, pl, output, accRadial, parallelism);
+    }
+
+    /**
+     * Makes {@link #compute()} save its state to a file, at most once every <var>intervalMillis</var>
+     * milliseconds.
+     *
+     * @see ExactSumSweepEngine#setCheckpoint(Path, long)
+     */
+    public void setCheckpoint(final Path file, final long intervalMillis) {
+        engine.setCheckpoint(file, intervalMillis);
+    }
+
+    /**
+     * Restores the state saved by a checkpoint on the same graph, so that the next call to
+     * {@link #compute()} continues from it.
+     *
+     * @see ExactSumSweepEngine#resume(Path)
+     */
+    public void resume(final Path file) throws IOException {
+        engine.resume(file);
+    }
+
+    /**
+     * Makes the next call to {@link #compute()} start from what a run on the previous snapshot of the
+     * graph learned. Nodes are matched by ID; use {@link WarmStart#remap(java.util.function.IntUnaryOperator, int)}
+     * to match them otherwise.
+     *
+     * @see ExactSumSweepEngine#warmStart(WarmStart)
+     */
+    public void warmStart(final WarmStart previous) {
+        engine.warmStart(previous);
+    }
+
+    /**
+     * @return what this run learned, to warm start the run on the next snapshot of the graph
+     * @see ExactSumSweepEngine#getWarmStart()
+     */
+    public WarmStart getWarmStart() {
+        return engine.getWarmStart();
+    }
+
+    public int run() {
+        compute();
+        return getDiameter();
+    }
+
+    /**
+     * Computes diameter, radius, and/or all eccentricities, starting from a vertex of maximum outdegree.
+     */
+    public void compute() {
+        compute(Budget.UNLIMITED, null);
+    }
+
+    /**
+     * As {@link #compute()}, but stops when <var>budget</var> runs out, and passes the bounds on the
+     * diameter to <var>listener</var> whenever they improve. Calling it again continues the run.
+     *
+     * @param listener
+     *            the listener of the bounds, or {@code null}
+     * @return a lower and an upper bound on the diameter, which are equal if the diameter was found
+     * @see ExactSumSweepEngine#compute(int, Budget, BoundsListener)
+     */
+    public Pair<Integer, Integer> compute(final Budget budget, final BoundsListener listener) {
+        int start = -1, maxOutdegree = -1;
+        for (int v = 0; v < graph.numNodes(); v++) {
+            // each outdegree of a compressed graph is decoded, so it is read once
+            final int outdegree = graph.outdegree(v);
+            if (outdegree > maxOutdegree) {
+                start = v;
+                maxOutdegree = outdegree;
+            }
+        }
+        return engine.compute(start, budget, listener);
+    }
+
+    public void sumSweepHeuristic(final int start, final int iter) {
+        engine.sumSweepHeuristic(start, iter);
+    }
+
+    public int getRadius() {
+        return engine.getRadius();
+    }
+
+    public int getDiameter() {
+        return engine.getDiameter();
+    }
+
+    /**
+     * @return a radial vertex, or -1 if the graph has no radial vertex
+     */
+    public int getRadialVertex() {
+        return engine.getRadialVertex();
+    }
+
+    /**
+     * @return a diametral vertex, or -1 if the graph has no arcs
+     */
+    public int getDiametralVertex() {
+        return engine.getDiametralVertex();
+    }
+
+    public int getForwardEccentricity(final int v) {
+        return engine.getForwardEccentricity(v);
+    }
+
+    public int getBackwardEccentricity(final int v) {
+        return engine.getBackwardEccentricity(v);
+    }
+
+    public int getRadiusIterations() {
+        return engine.getRadiusIterations();
+    }
+
+    public int getDiameterIterations() {
+        return engine.getDiameterIterations();
+    }
+
+    public int getAllForwardIterations() {
+        return engine.getAllForwardIterations();
+    }
+
+    public int getAllIterations() {
+        return engine.getAllIterations();
+    }
+
+    /**
+     * Stops the threads of the engine, if it was created with a parallelism larger than 1.
+     *
+     * @see ExactSumSweepEngine#close()
+     */
+    @Override
+    public void close() {
+        engine.close();
+    }
+}
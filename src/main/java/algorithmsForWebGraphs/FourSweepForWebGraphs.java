@@ -3,9 +3,6 @@ package algorithmsForWebGraphs;
 import it.unimi.dsi.webgraph.ImmutableGraph;
 import org.javatuples.Pair;
 
-import java.util.LinkedList;
-import java.util.Queue;
-
 public class FourSweepForWebGraphs {
     private final int s;
     private final ImmutableGraph g;
@@ -20,47 +17,52 @@ public class FourSweepForWebGraphs {
         int a1 = bfs1.getFurthest();
 
         BFSResult bfs2 = bfs(a1);
-        int b1 = bfs2.getFurthest();
-        int r2 = bfs2.getMid(b1);
-        int ecc_a1 = bfs2.getDepth(b1);
+        int r2 = bfs2.getMid();
+        int ecc_a1 = bfs2.getEcc();
 
         BFSResult bfs3 = bfs(r2);
         int a2 = bfs3.getFurthest();
 
         BFSResult bfs4 = bfs(a2);
-        int b2 = bfs4.getFurthest();
-        int r1 = bfs4.getMid(b2);
-        int ecc_a2 = bfs4.getDepth(b2);
+        int r1 = bfs4.getMid();
+        int ecc_a2 = bfs4.getEcc();
 
         return new Pair<>(r1, Math.max(ecc_a1, ecc_a2));
     }
 
+    /**
+     * Performs a BFS from <var>source</var> in the {@link BFSWorkspace} of the current thread, and
+     * extracts everything the four sweeps need before the workspace is reused.
+     */
     private BFSResult bfs(int source) {
-        int[] distances = new int[g.numNodes()];
-        int[] predecessors = new int[g.numNodes()];
-        for (int i = 0; i < distances.length; i++) {
-            distances[i] = -1;
-            predecessors[i] = -1;
-        }
+        BFSWorkspace workspace = BFSWorkspace.get(g.numNodes());
+        final int[] queue = workspace.queue();
+        final int[] distances = workspace.distances();
+        final int[] predecessors = workspace.parents();
+        final int[] marks = workspace.marks();
+        final int epoch = workspace.epoch();
+
+        int head = 0, tail = 0;
+        queue[tail++] = source;
+        marks[source] = epoch;
         distances[source] = 0;
-
-        Queue<Integer> queue = new LinkedList<>();
-        queue.add(source);
+        predecessors[source] = -1;
 
         int furthestNode = source;
         int maxDistance = 0;
 
-        while (!queue.isEmpty()) {
-            int current = queue.poll();
+        while (head < tail) {
+            int current = queue[head++];
             int[] successors = g.successorArray(current);
             int degree = g.outdegree(current);
 
             for (int i = 0; i < degree; i++) {
                 int neighbor = successors[i];
-                if (distances[neighbor] == -1) { // If not visited
+                if (marks[neighbor] != epoch) { // If not visited
+                    marks[neighbor] = epoch;
                     distances[neighbor] = distances[current] + 1;
                     predecessors[neighbor] = current;
-                    queue.add(neighbor);
+                    queue[tail++] = neighbor;
                     if (distances[neighbor] > maxDistance) {
                         maxDistance = distances[neighbor];
                         furthestNode = neighbor;
@@ -69,39 +71,41 @@ public class FourSweepForWebGraphs {
             }
         }
 
-        return new BFSResult(furthestNode, maxDistance, distances, predecessors);
+        int midNode = furthestNode;
+        for (int i = 0; i < maxDistance / 2; i++) {
+            midNode = predecessors[midNode];
+        }
+
+        return new BFSResult(furthestNode, maxDistance, midNode);
     }
 
     private static class BFSResult {
         private final int furthestNode;
         private final int maxDistance;
-        private final int[] distances;
-        private final int[] predecessors;
+        private final int midNode;
 
-        public BFSResult(int furthestNode, int maxDistance, int[] distances, int[] predecessors) {
+        public BFSResult(int furthestNode, int maxDistance, int midNode) {
             this.furthestNode = furthestNode;
             this.maxDistance = maxDistance;
-            this.distances = distances;
-            this.predecessors = predecessors;
+            this.midNode = midNode;
         }
 
         public int getFurthest() {
             return furthestNode;
         }
 
-        public int getDepth(int node) {
-            return distances[node];
+        /**
+         * @return the depth of the furthest node
+         */
+        public int getEcc() {
+            return maxDistance;
         }
 
-        public int getMid(int target) {
-            int pathLength = distances[target];
-            int midPoint = pathLength / 2;
-
-            int currentNode = target;
-            for (int i = 0; i < midPoint; i++) {
-                currentNode = predecessors[currentNode];
-            }
-            return currentNode;
+        /**
+         * @return the node halfway along the BFS tree path to the furthest node
+         */
+        public int getMid() {
+            return midNode;
         }
     }
 }
@@ -1,57 +1,277 @@
 package algorithmsForWebGraphs;
 
 import algorithms.BFS;
-import algorithms.Layered_BFS;
+import algorithms.BoundsListener;
+import algorithms.Budget;
 import algorithms.VertexChooser;
-import it.unimi.dsi.fastutil.ints.IntIntSortedPair;
+import algorithms.WarmStart;
+import buildOffsetForDataset.GraphStore;
+import it.unimi.dsi.fastutil.ints.IntArrays;
 import it.unimi.dsi.webgraph.ImmutableGraph;
+import org.javatuples.Pair;
 import org.jgrapht.Graph;
 import org.jgrapht.webgraph.ImmutableDirectedGraphAdapter;
 import org.jgrapht.webgraph.ImmutableUndirectedGraphAdapter;
 
-import java.util.Set;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class IFubForWebGraphs {
+/**
+ * The iFub algorithm on an {@link ImmutableGraph}. It runs on the symmetrized version of the graph given,
+ * the <code>&lt;basename&gt;-sym</code> stored by {@link GraphStore#build(String)} when there is one, or one
+ * built in memory otherwise. The bounds of iFub hold only on an undirected graph, so they are bounds on the
+ * diameter of the undirected version of the graph given, even when that graph is directed. With a
+ * parallelism larger than 1, the instance owns a pool of threads, each with its own copy of the graph and
+ * BFS workspace; {@link #close()} releases them.
+ */
+public class IFubForWebGraphs implements AutoCloseable {
     private final ImmutableGraph g;
     private final VertexChooser chooser;
     private int numBFS;
     private int numLayeredBFS;
     private final ImmutableUndirectedGraphAdapter adapter;
+    /** The BFS from the node whose layers are scanned, which indexes every layer at once. */
+    private WebGraphBFS.BFSLevels levels;
+    private int levelsSource = -1;
+    /** The number of nodes reached by {@link #levels}, which is the same for every node of its layers. */
+    private int reachable;
+    /** The eccentricity of the source of {@link #levels}: a node of F_i has eccentricity at most i plus this value. */
+    private int eccOffset;
+    /** The pool the BFSs of a layer are spread over, or null to run them on the calling thread. */
+    private final ForkJoinPool pool;
+    /** The copy of the graph used by each thread of the pool, since the graph is not thread-safe. */
+    private final ThreadLocal<ImmutableGraph> copies;
+    /** The budget of the current run, and the time and the number of BFSs at its start. */
+    private Budget budget = Budget.UNLIMITED;
+    private long budgetStartMillis;
+    private int budgetStartBFS;
+    /** Whether the current run stopped a layer because it ran out of budget. */
+    private volatile boolean outOfBudget;
+    /** Whether the last layer scanned was stopped before all of its nodes were probed, for any reason. */
+    private boolean layerCut;
+    /** The last bounds on the diameter passed to the listener of the current run. */
+    private int notifiedLower, notifiedUpper;
+    /** What the run on the previous snapshot of the graph learned, or null. */
+    private WarmStart warmStart;
+    /**
+     * The eccentricity of each node, or -1 if no BFS computed it exactly. The BFSs of a layer write the
+     * entries of different nodes, so the array is shared by the tasks of the pool.
+     */
+    private final int[] knownEcc;
+    /** The node whose layers were scanned by the last run, or -1. */
+    private int root = -1;
 
     public IFubForWebGraphs(ImmutableGraph g, VertexChooser chooser) {
-        this.g = g;
+        this(g, chooser, 1);
+    }
+
+    /**
+     * @param parallelism the number of threads the BFSs of each layer are spread over; when larger than 1,
+     *                    the instance must be closed to stop the threads
+     */
+    public IFubForWebGraphs(ImmutableGraph g, VertexChooser chooser, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive.");
+        }
+        // the layers and the bound 2i are those of an undirected graph, so g is read as one
+        this.g = GraphStore.symmetrize(g);
         this.chooser = chooser;
+        this.pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        this.copies = ThreadLocal.withInitial(this.g::copy);
         adapter = new ImmutableUndirectedGraphAdapter(this.g);
+        knownEcc = new int[this.g.numNodes()];
+        Arrays.fill(knownEcc, -1);
     }
 
     public Integer run() {
         numBFS = 0;
         numLayeredBFS = 0;
-        Integer u = chooser.getInitialNode(adapter);
-        return run(u, 0 , 0);
+        Integer u = getInitialNode();
+        return run(u, warmLowerBound(), 0);
     }
 
     public Integer run(Integer u, int l, int k) {
-        int ecc_u = WebGraphBFS.calculateEccentricity(g, u);
-        numBFS++;
-        int i = ecc_u;
-        int lb = Math.max(l, ecc_u);
-        int ub = 2 * ecc_u;
-
-        while (ub - lb > k) {
-            System.out.println("ub - lb = " + ub + " - " + lb + " = " + (ub - lb));
-            int bi_u = getMaxEccOfLayer(u, i);
-            if (Math.max(lb, bi_u) > 2 * (i - 1)) {
-                return Math.max(lb, bi_u);
+        return run(u, l, k, Budget.UNLIMITED, null).getValue0();
+    }
+
+    /**
+     * As {@link #run()}, but stops when <var>budget</var> runs out.
+     *
+     * @see #run(Integer, int, int, Budget, BoundsListener)
+     */
+    public Pair<Integer, Integer> run(Budget budget, BoundsListener listener) {
+        numBFS = 0;
+        numLayeredBFS = 0;
+        // the BFSs of the warm lower bound are charged to the budget too
+        startBudget(budget);
+        Integer u = getInitialNode();
+        return runWithinBudget(u, warmLowerBound(), 0, listener);
+    }
+
+    /**
+     * Makes the next run start from what a run on the previous snapshot of the graph learned: its layers
+     * are those of the radial node (or of the node whose layers were scanned) of the previous run, its
+     * lower bound is the eccentricity of the previous diametral node, and the nodes of each layer are
+     * probed by decreasing previous eccentricity, so that the threshold of the probes grows quickly.
+     * If the snapshots have a different number of nodes, the nodes are matched by ID; otherwise, use
+     * {@link WarmStart#remap(java.util.function.IntUnaryOperator, int)} first.
+     *
+     * @param previous the warm start of the previous snapshot, or null
+     */
+    public void warmStart(WarmStart previous) {
+        warmStart = previous == null || previous.numNodes() == g.numNodes() ? previous
+                : previous.remap(v -> v, g.numNodes());
+    }
+
+    /**
+     * Returns what the last run learned, to warm start the run on the next snapshot of the graph: the
+     * eccentricities computed exactly, the node of largest eccentricity among them, and the node whose
+     * layers were scanned. The radius is not computed, so there is no radial node.
+     */
+    public WarmStart getWarmStart() {
+        int diametral = -1;
+        for (int v = 0; v < knownEcc.length; v++) {
+            if (knownEcc[v] >= 0 && (diametral == -1 || knownEcc[v] > knownEcc[diametral])) {
+                diametral = v;
+            }
+        }
+        // the graph is undirected, so the backward eccentricities are the forward ones
+        return new WarmStart(knownEcc.clone(), knownEcc.clone(), diametral, true, -1,
+                root == -1 ? new int[0] : new int[] {WarmStart.source(root, true)});
+    }
+
+    /**
+     * @return the radial node, or the first forward source, of the warm start if there is one, or the
+     * node of the chooser otherwise
+     */
+    private Integer getInitialNode() {
+        if (warmStart != null) {
+            if (warmStart.getRadialVertex() != -1) {
+                return warmStart.getRadialVertex();
+            }
+            for (int i = 0; i < warmStart.numSources(); i++) {
+                if (warmStart.getSource(i) >= 0) {
+                    return warmStart.getSource(i);
+                }
             }
-            lb = Math.max(lb, bi_u);
-            ub = 2 * (i - 1);
-            i = i - 1;
         }
+        return chooser.getInitialNode(adapter);
+    }
 
+    /**
+     * Performs a BFS from the diametral node of the warm start, and from its node of largest
+     * eccentricity: their eccentricities in this graph are lower bounds on the diameter.
+     *
+     * @return the largest of these eccentricities, or 0 if there is no warm start
+     */
+    private int warmLowerBound() {
+        if (warmStart == null) {
+            return 0;
+        }
+        int lb = 0;
+        for (int v : new int[] {warmStart.getDiametralVertex(), warmStart.getPeripheralVertex(true)}) {
+            // one BFS of the budget is left for the BFS from u, without which no bound is certified
+            if (v != -1 && knownEcc[v] == -1 && !budget.isExhausted(budgetStartMillis, numBFS + 1 - budgetStartBFS)) {
+                knownEcc[v] = WebGraphBFS.calculateEccentricity(g, v);
+                numBFS++;
+            }
+            if (v != -1) {
+                lb = Math.max(lb, knownEcc[v]);
+            }
+        }
         return lb;
     }
 
+    /**
+     * As {@link #run(Integer, int, int)}, but stops when <var>budget</var> runs out, even in the middle of
+     * a layer, and passes the bounds on the diameter to <var>listener</var> whenever they improve.
+     *
+     * The BFS from <var>u</var> is performed even if the budget is already exhausted, since no bound is
+     * certified without it.
+     *
+     * @param listener the listener of the bounds, or {@code null}
+     * @return the best lower and upper bounds on the diameter of the undirected version of the graph
+     *         certified within the budget
+     */
+    public Pair<Integer, Integer> run(Integer u, int l, int k, Budget budget, BoundsListener listener) {
+        startBudget(budget);
+        return runWithinBudget(u, l, k, listener);
+    }
+
+    private void startBudget(Budget budget) {
+        this.budget = budget;
+        budgetStartMillis = System.currentTimeMillis();
+        budgetStartBFS = numBFS;
+    }
+
+    /**
+     * The body of {@link #run(Integer, int, int, Budget, BoundsListener)}, once the budget is started.
+     */
+    private Pair<Integer, Integer> runWithinBudget(Integer u, int l, int k, BoundsListener listener) {
+        outOfBudget = false;
+        notifiedLower = notifiedUpper = -1;
+        try {
+            setLevels(u);
+            root = u;
+            numBFS++;
+            int ecc_u = levels.getEccentricity();
+            knownEcc[u] = ecc_u;
+            int i = ecc_u;
+            int lb = Math.max(l, ecc_u);
+            int ub = 2 * ecc_u;
+            notifyBounds(listener, lb, ub);
+
+            while (ub - lb > k) {
+                if (isOutOfBudget(numBFS)) {
+                    break;
+                }
+                System.out.println("ub - lb = " + ub + " - " + lb + " = " + (ub - lb));
+                // every eccentricity is at most ub = 2i, so once a vertex of F_i reaches 2i - min(k, 1) the
+                // exit condition holds and the answer is within k of the diameter
+                int bi_u = getMaxEccOfLayer(u, i, lb, 2 * i - Math.min(k, 1));
+                if (outOfBudget) {
+                    // F_i was not completed, so ub = 2i still holds
+                    lb = Math.max(lb, bi_u);
+                    break;
+                }
+                if (Math.max(lb, bi_u) > 2 * (i - 1)) {
+                    lb = Math.max(lb, bi_u);
+                    // the nodes of F_i that were not probed may still have eccentricity ub = 2i
+                    int upper = layerCut ? Math.max(lb, ub) : lb;
+                    notifyBounds(listener, lb, upper);
+                    return new Pair<>(lb, upper);
+                }
+                lb = Math.max(lb, bi_u);
+                ub = 2 * (i - 1);
+                i = i - 1;
+                notifyBounds(listener, lb, Math.max(lb, ub));
+            }
+
+            notifyBounds(listener, lb, Math.max(lb, ub));
+            return new Pair<>(lb, Math.max(lb, ub));
+        } finally {
+            this.budget = Budget.UNLIMITED;
+            warmStart = null;
+        }
+    }
+
+    /**
+     * @param bfsCount the number of BFSs performed since the object was created, or the last call of {@link #run()}
+     */
+    private boolean isOutOfBudget(int bfsCount) {
+        return budget.isExhausted(budgetStartMillis, bfsCount - budgetStartBFS);
+    }
+
+    private void notifyBounds(BoundsListener listener, int lb, int ub) {
+        if (listener != null && (lb != notifiedLower || ub != notifiedUpper)) {
+            notifiedLower = lb;
+            notifiedUpper = ub;
+            listener.boundsChanged(lb, ub);
+        }
+    }
+
     /**
      * Let F_i be the set of vertices at distance i from u.
      * Then, get Max Ecc returns the maximum eccentricity of the vertices in F_i.
@@ -59,35 +279,198 @@ public class IFubForWebGraphs {
      * @return the maximum eccentricity of the vertices in F_i
      */
     public int getMaxEccOfLayer(Integer v, int i) {
-        Layered_BFS<Integer, IntIntSortedPair> bfs = new Layered_BFS<>(adapter, v, i);
-        numLayeredBFS++;
-        Set<Integer> layer = bfs.getLayer();
+        return getMaxEccOfLayer(v, i, -1);
+    }
+
+    /**
+     * Let F_i be the set of vertices at distance i from u.
+     * Returns the maximum eccentricity of the vertices in F_i if it is greater than <var>threshold</var>,
+     * or a value at most <var>threshold</var> otherwise. Each batch is only probed against the maximum
+     * found so far, so most of the BFSs stop before visiting the whole graph.
+     * @param v vertex
+     * @param threshold the maximum eccentricity is not needed if it is at most this value
+     * @return the maximum eccentricity of the vertices in F_i, if it is greater than <var>threshold</var>
+     */
+    public int getMaxEccOfLayer(Integer v, int i, int threshold) {
+        return getMaxEccOfLayer(v, i, threshold, Integer.MAX_VALUE);
+    }
+
+    /**
+     * As {@link #getMaxEccOfLayer(Integer, int, int)}, but the BFSs that are left are cancelled as soon as
+     * an eccentricity of at least <var>abortAt</var> is found, and the maximum found so far is returned.
+     */
+    private int getMaxEccOfLayer(Integer v, int i, int threshold, int abortAt) {
+        if (levels == null || levelsSource != v) {
+            setLevels(v);
+            numLayeredBFS++;
+        }
+        if (i > levels.getEccentricity()) {
+            layerCut = false;
+            return 0;
+        }
+
+        // the layer is a slice of the visit order of the bfs, so it is never copied
+        int[] layerArray = levels.getOrder();
+        int layerStart = levels.getLevelStart(i), layerEnd = levels.getLevelEnd(i);
+        int upperBound = i + eccOffset;
+        abortAt = Math.min(abortAt, upperBound);
+        if (warmStart != null) {
+            // the nodes that were the most eccentric in the previous snapshot are probed first; the order
+            // inside a layer does not matter to the other layers
+            WarmStart previous = warmStart;
+            IntArrays.quickSort(layerArray, layerStart, layerEnd, (a, b) -> Integer.compare(
+                    previous.getForwardEccentricity(b), previous.getForwardEccentricity(a)));
+        }
 
         long start, timeElapsed, millisElapsed;
         double seccondsElapsed;
-        int layerSize = layer.size(), count = 1;
+        int layerSize = layerEnd - layerStart;
 
-        int maxEcc = 0;
-        for (Integer vertex : layer) {
+        if (pool != null) {
             start = System.nanoTime();
+            AtomicInteger maxEcc = new AtomicInteger(0);
+            AtomicInteger bfsCount = new AtomicInteger(0);
+            pool.invoke(new LayerTask(layerArray, layerStart, layerEnd, threshold, upperBound, abortAt, maxEcc, bfsCount));
+            numBFS += bfsCount.get();
+            layerCut = bfsCount.get() < layerSize;
 
-            int ecc = WebGraphBFS.calculateEccentricity(g, vertex);
-            numBFS++;
+            // the tasks finish in any order, so the progress is printed once for the whole layer
+            timeElapsed = System.nanoTime() - start;
+            millisElapsed = timeElapsed / 1_000_000;
+            seccondsElapsed = ((double)millisElapsed) / 1_000;
+            System.out.println("finished " + bfsCount.get() + " / " + layerSize + " from current layer in " + seccondsElapsed + " seconds");
+            return maxEcc.get();
+        }
+
+        int maxEcc = 0, probed = 0;
+        for (int from = layerStart; from < layerEnd && maxEcc < abortAt; from += MultiSourceBFS.BATCH_SIZE) {
+            start = System.nanoTime();
+
+            int batchSize = Math.min(MultiSourceBFS.BATCH_SIZE, layerEnd - from);
+            int ecc = probeBatch(g, layerArray, from, batchSize, Math.max(threshold, maxEcc), upperBound);
+            numBFS += batchSize;
+            probed += batchSize;
 
             timeElapsed = System.nanoTime() - start;
             millisElapsed = timeElapsed / 1_000_000;
             seccondsElapsed = ((double)millisElapsed) / 1_000;
-            System.out.println("finished " + count++ + " / " + layerSize + " from current layer in " + seccondsElapsed + " seconds");
+            System.out.println("finished " + (from + batchSize - layerStart) + " / " + layerSize + " from current layer in " + seccondsElapsed + " seconds");
 
 
             if (ecc > maxEcc) {
                 maxEcc = ecc;
             }
+            if (from + batchSize < layerEnd && maxEcc < abortAt && isOutOfBudget(numBFS)) {
+                outOfBudget = true;
+                break;
+            }
         }
 
+        layerCut = probed < layerSize;
         return maxEcc;
     }
 
+    /**
+     * Makes the layers of <var>source</var> the ones that are scanned, and bounds the probes of their nodes
+     * by its BFS: they are in the component of <var>source</var>, and a node of F_i has eccentricity at
+     * most i plus the eccentricity of <var>source</var>. The bounds of u are restored when its layers are
+     * scanned again.
+     */
+    private void setLevels(int source) {
+        levels = WebGraphBFS.levels(g, source);
+        levelsSource = source;
+        reachable = levels.getNumReached();
+        eccOffset = levels.getEccentricity();
+    }
+
+    /**
+     * Probes the eccentricities of <code>layer[from], ..., layer[from + batchSize - 1]</code> against
+     * <var>threshold</var>, and returns the maximum answer.
+     */
+    private int probeBatch(ImmutableGraph graph, int[] layer, int from, int batchSize, int threshold, int upperBound) {
+        if (batchSize == 1) {
+            // a single source is cheaper with a queue than with a bit-parallel BFS
+            int ecc = WebGraphBFS.probeEccentricity(graph, layer[from], threshold, upperBound, reachable);
+            if (ecc > threshold) {
+                knownEcc[layer[from]] = ecc;
+            }
+            return ecc;
+        }
+
+        int ecc = 0;
+        int[] eccs = MultiSourceBFS.probeEccentricities(graph, layer, from, batchSize, threshold, upperBound, reachable);
+        for (int j = 0; j < eccs.length; j++) {
+            ecc = Math.max(ecc, eccs[j]);
+            if (eccs[j] > threshold) {
+                knownEcc[layer[from + j]] = eccs[j];
+            }
+        }
+        return ecc;
+    }
+
+    /**
+     * Probes a range of a layer, splitting it in halves until it fits in one batch, so that idle threads
+     * can steal the other halves. The running maximum is shared by all the tasks: it is the threshold of
+     * every new batch, and once it reaches <var>abortAt</var> the batches that are left are skipped.
+     */
+    private class LayerTask extends RecursiveAction {
+        private final int[] layer;
+        private final int from, to;
+        private final int threshold, upperBound, abortAt;
+        private final AtomicInteger maxEcc;
+        private final AtomicInteger bfsCount;
+
+        LayerTask(int[] layer, int from, int to, int threshold, int upperBound, int abortAt, AtomicInteger maxEcc,
+                  AtomicInteger bfsCount) {
+            this.layer = layer;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.upperBound = upperBound;
+            this.abortAt = abortAt;
+            this.maxEcc = maxEcc;
+            this.bfsCount = bfsCount;
+        }
+
+        @Override
+        protected void compute() {
+            if (maxEcc.get() >= abortAt) {
+                return;
+            }
+            if (outOfBudget || isOutOfBudget(numBFS + bfsCount.get())) {
+                // the tasks that are left are skipped, and the layer is not complete
+                outOfBudget = true;
+                return;
+            }
+
+            if (to - from > MultiSourceBFS.BATCH_SIZE) {
+                int batches = (to - from + MultiSourceBFS.BATCH_SIZE - 1) / MultiSourceBFS.BATCH_SIZE;
+                int mid = from + (batches / 2) * MultiSourceBFS.BATCH_SIZE;
+                invokeAll(new LayerTask(layer, from, mid, threshold, upperBound, abortAt, maxEcc, bfsCount),
+                        new LayerTask(layer, mid, to, threshold, upperBound, abortAt, maxEcc, bfsCount));
+                return;
+            }
+
+            int ecc = probeBatch(copies.get(), layer, from, to - from,
+                    Math.max(threshold, maxEcc.get()), upperBound);
+            maxEcc.accumulateAndGet(ecc, Math::max);
+            bfsCount.addAndGet(to - from);
+        }
+    }
+
+    /**
+     * Stops the threads of the pool, releasing their copies of the graph and their BFS workspaces. The
+     * instance cannot run in parallel afterwards; without a pool, this does nothing.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+            // the calling thread may have run some of the tasks itself
+            copies.remove();
+        }
+    }
+
     public int getNumBFS() {
         return numBFS;
     }
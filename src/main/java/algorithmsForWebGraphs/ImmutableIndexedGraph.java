@@ -0,0 +1,48 @@
+package algorithmsForWebGraphs;
+
+import algorithms.IndexedGraph;
+import it.unimi.dsi.webgraph.ImmutableGraph;
+
+/**
+ * An {@link ImmutableGraph} read as an {@link IndexedGraph}: each successor list is decoded when it is
+ * needed, and nothing is kept per arc. Each copy reads its own {@link ImmutableGraph#copy()}.
+ */
+class ImmutableIndexedGraph implements IndexedGraph {
+    private final ImmutableGraph graph;
+
+    /**
+     * @throws IllegalArgumentException
+     *             if the graph does not support random access, e.g. if it was loaded offline
+     */
+    ImmutableIndexedGraph(ImmutableGraph graph) {
+        if (!graph.randomAccess()) {
+            throw new IllegalArgumentException("The graph must support random access.");
+        }
+        this.graph = graph;
+    }
+
+    @Override
+    public int numNodes() {
+        return graph.numNodes();
+    }
+
+    @Override
+    public int[] successorArray(int v) {
+        return graph.successorArray(v);
+    }
+
+    @Override
+    public int successorOffset(int v) {
+        return 0;
+    }
+
+    @Override
+    public int outdegree(int v) {
+        return graph.outdegree(v);
+    }
+
+    @Override
+    public IndexedGraph copy() {
+        return new ImmutableIndexedGraph(graph.copy());
+    }
+}
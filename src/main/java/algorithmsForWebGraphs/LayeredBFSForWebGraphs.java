@@ -0,0 +1,71 @@
+package algorithmsForWebGraphs;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.webgraph.ImmutableGraph;
+
+import java.util.Arrays;
+
+/**
+ * A BFS on an {@link ImmutableGraph} that stops at a given depth: it finds the nodes at distance exactly
+ * <var>depth</var> from the start node (the layer), and the nodes at distance at most <var>depth</var> (the ball),
+ * without expanding the nodes of the layer.
+ * The BFS runs in the {@link BFSWorkspace} of the current thread.
+ */
+public class LayeredBFSForWebGraphs {
+    /** The nodes at distance at most depth, sorted by distance. */
+    private final int[] ball;
+    /** The position in {@link #ball} of the first node of the layer. */
+    private final int layerStart;
+
+    public LayeredBFSForWebGraphs(ImmutableGraph graph, int start, int depth) {
+        BFSWorkspace workspace = BFSWorkspace.get(graph.numNodes());
+        final int[] queue = workspace.queue();
+        final int[] distances = workspace.distances();
+        final int[] marks = workspace.marks();
+        final int epoch = workspace.epoch();
+
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        marks[start] = epoch;
+        distances[start] = 0;
+
+        while (head < tail) {
+            int current = queue[head];
+            int currentDistance = distances[current];
+            if (currentDistance >= depth) {
+                // the rest of the queue is the layer
+                break;
+            }
+            head++;
+
+            int[] neighbors = graph.successorArray(current);
+            int degree = graph.outdegree(current);
+
+            for (int i = 0; i < degree; i++) {
+                int neighbor = neighbors[i];
+                if (marks[neighbor] != epoch) {
+                    marks[neighbor] = epoch;
+                    queue[tail++] = neighbor;
+                    distances[neighbor] = currentDistance + 1;
+                }
+            }
+        }
+
+        ball = Arrays.copyOf(queue, tail);
+        layerStart = head;
+    }
+
+    /**
+     * @return the nodes at distance exactly depth from the start node
+     */
+    public IntArrayList getLayer() {
+        return IntArrayList.wrap(Arrays.copyOfRange(ball, layerStart, ball.length));
+    }
+
+    /**
+     * @return the nodes at distance at most depth from the start node, sorted by distance
+     */
+    public int[] getBall() {
+        return ball;
+    }
+}
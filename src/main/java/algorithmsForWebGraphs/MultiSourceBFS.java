@@ -0,0 +1,235 @@
+package algorithmsForWebGraphs;
+
+import it.unimi.dsi.webgraph.ImmutableGraph;
+
+import java.util.Arrays;
+
+/**
+ * A bit-parallel multi-source BFS (Then et al., "The More the Merrier"), which advances up to
+ * {@link #BATCH_SIZE} independent BFSs at the same time.
+ * Every node keeps one bit per source in a <code>long</code>, so the successors of a node are
+ * decoded once for all the BFSs that reach it at the same level, instead of once per BFS.
+ */
+public class MultiSourceBFS {
+    /** The maximum number of sources of a single run. */
+    public static final int BATCH_SIZE = Long.SIZE;
+
+    /**
+     * a class to store the results of a multi-source bfs.
+     */
+    public static class Result {
+        private final int[] eccentricities;
+        private final int[] furthestVertices;
+
+        public Result(int[] eccentricities, int[] furthestVertices) {
+            this.eccentricities = eccentricities;
+            this.furthestVertices = furthestVertices;
+        }
+
+        /**
+         * @return the eccentricity of the <var>i</var>-th source of the batch
+         */
+        public int getEccentricity(int i) {
+            return eccentricities[i];
+        }
+
+        /**
+         * @return a vertex at maximum distance from the <var>i</var>-th source of the batch
+         */
+        public int getFurthestVertex(int i) {
+            if (furthestVertices == null) {
+                throw new UnsupportedOperationException("The furthest vertices were not computed.");
+            }
+            return furthestVertices[i];
+        }
+
+        /**
+         * @return the maximum eccentricity among the sources of the batch
+         */
+        public int getMaxEccentricity() {
+            int max = 0;
+            for (int ecc : eccentricities) {
+                max = Math.max(max, ecc);
+            }
+            return max;
+        }
+    }
+
+
+    /**
+     * Performs a BFS from each of the nodes <code>sources[from], ..., sources[from + length - 1]</code>
+     * at the same time, and returns their eccentricities.
+     *
+     * @param graph The immutable graph (it must support random access).
+     * @param sources The array holding the sources.
+     * @param from The position of the first source of the batch.
+     * @param length The number of sources of the batch, at most {@link #BATCH_SIZE}.
+     * @return the eccentricities of the sources, in the order they are given.
+     */
+    public static int[] eccentricities(ImmutableGraph graph, int[] sources, int from, int length) {
+        return run(graph, sources, from, length, false).eccentricities;
+    }
+
+    /**
+     * Performs a BFS from each of the nodes <code>sources[from], ..., sources[from + length - 1]</code>
+     * at the same time.
+     *
+     * @param graph The immutable graph (it must support random access).
+     * @param sources The array holding the sources.
+     * @param from The position of the first source of the batch.
+     * @param length The number of sources of the batch, at most {@link #BATCH_SIZE}.
+     * @param computeFurthest Whether to compute a furthest vertex from each source.
+     * @return the result of the bfs
+     */
+    public static Result run(ImmutableGraph graph, int[] sources, int from, int length, boolean computeFurthest) {
+        return run(graph, sources, from, length, computeFurthest, null, -1, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Probes the eccentricities of the nodes <code>sources[from], ..., sources[from + length - 1]</code>
+     * as {@link WebGraphBFS#probeEccentricity(ImmutableGraph, int, int, int, int)} does, with one
+     * bit-parallel BFS. A source leaves the batch as soon as its answer is decided, and the BFS stops
+     * when no source is left.
+     *
+     * @param graph The immutable graph (it must support random access).
+     * @param sources The array holding the sources.
+     * @param from The position of the first source of the batch.
+     * @param length The number of sources of the batch, at most {@link #BATCH_SIZE}.
+     * @param threshold The eccentricities at most this value are not needed exactly.
+     * @param upperBound An upper bound on the eccentricity of every source.
+     * @param reachable An upper bound on the number of nodes reachable from every source.
+     * @return for every source, its eccentricity if it is greater than <var>threshold</var>, or an upper
+     * bound of it that is at most <var>threshold</var> otherwise.
+     */
+    public static int[] probeEccentricities(ImmutableGraph graph, int[] sources, int from, int length,
+                                            int threshold, int upperBound, int reachable) {
+        return run(graph, sources, from, length, false, new int[length], threshold, upperBound, reachable).eccentricities;
+    }
+
+    private static Result run(ImmutableGraph graph, int[] sources, int from, int length, boolean computeFurthest,
+                              int[] counts, int threshold, int upperBound, int reachable) {
+        if (length < 1 || length > BATCH_SIZE) {
+            throw new IllegalArgumentException("The number of sources must be between 1 and " + BATCH_SIZE + ".");
+        }
+
+        final int numNodes = graph.numNodes();
+        final BFSWorkspace workspace = BFSWorkspace.get(numNodes);
+        workspace.prepareMultiSource(numNodes);
+        final long[] seen = workspace.seen();
+        final long[] visit = workspace.visit();
+        final long[] visitNext = workspace.visitNext();
+
+        final int[] eccentricities = new int[length];
+        final int[] furthestVertices = computeFurthest ? new int[length] : null;
+
+        for (int i = 0; i < length; i++) {
+            int source = sources[from + i];
+            seen[source] |= 1L << i;
+            visit[source] |= 1L << i;
+            if (computeFurthest) {
+                furthestVertices[i] = source;
+            }
+            if (counts != null) {
+                counts[i] = 1;
+            }
+        }
+
+        // the sources whose BFS is still running
+        long active = length == BATCH_SIZE ? -1 : (1L << length) - 1;
+        if (counts != null) {
+            active = decide(active, -1, 0, eccentricities, counts, threshold, upperBound, reachable);
+        }
+
+        int level = 0;
+        long levelMask = -1;
+        while (levelMask != 0 && active != 0) {
+            level++;
+
+            // expand every node that some BFS reached at the previous level
+            for (int v = 0; v < numNodes; v++) {
+                final long bits = visit[v] & active;
+                if (bits == 0) {
+                    continue;
+                }
+
+                int[] neighbors = graph.successorArray(v);
+                int degree = graph.outdegree(v);
+                for (int i = 0; i < degree; i++) {
+                    int neighbor = neighbors[i];
+                    long newBits = bits & ~seen[neighbor];
+                    if (newBits != 0) {
+                        visitNext[neighbor] |= newBits;
+                    }
+                }
+            }
+
+            // the nodes reached for the first time become the next frontier
+            levelMask = 0;
+            for (int v = 0; v < numNodes; v++) {
+                final long newBits = visitNext[v];
+                visit[v] = newBits;
+                if (newBits == 0) {
+                    continue;
+                }
+
+                visitNext[v] = 0;
+                seen[v] |= newBits;
+                levelMask |= newBits;
+
+                if (computeFurthest) {
+                    for (long bits = newBits; bits != 0; bits &= bits - 1) {
+                        furthestVertices[Long.numberOfTrailingZeros(bits)] = v;
+                    }
+                }
+                if (counts != null) {
+                    for (long bits = newBits; bits != 0; bits &= bits - 1) {
+                        counts[Long.numberOfTrailingZeros(bits)]++;
+                    }
+                }
+            }
+
+            for (long bits = levelMask; bits != 0; bits &= bits - 1) {
+                eccentricities[Long.numberOfTrailingZeros(bits)] = level;
+            }
+
+            active &= levelMask;
+            if (counts != null) {
+                active = decide(active, levelMask, level, eccentricities, counts, threshold, upperBound, reachable);
+            }
+        }
+
+        if (levelMask != 0) {
+            // the BFS stopped early, so the last frontier must be cleared for the next run
+            Arrays.fill(visit, 0, numNodes, 0);
+        }
+
+        return new Result(eccentricities, furthestVertices);
+    }
+
+    /**
+     * Removes from <var>active</var> the sources whose probe is decided after <var>level</var>, and
+     * stores their answer.
+     *
+     * @return the sources that are still active
+     */
+    private static long decide(long active, long levelMask, int level, int[] eccentricities, int[] counts,
+                               int threshold, int upperBound, int reachable) {
+        for (long bits = active & levelMask; bits != 0; bits &= bits - 1) {
+            final int i = Long.numberOfTrailingZeros(bits);
+            final int bound = level + (reachable - counts[i]);
+
+            if (counts[i] >= reachable) {
+                // every reachable node has been seen, so the eccentricity is exact
+                active &= ~(1L << i);
+            } else if (level >= upperBound) {
+                eccentricities[i] = upperBound;
+                active &= ~(1L << i);
+            } else if (bound <= threshold) {
+                // every node still unseen can add at most one level
+                eccentricities[i] = bound;
+                active &= ~(1L << i);
+            }
+        }
+        return active;
+    }
+}
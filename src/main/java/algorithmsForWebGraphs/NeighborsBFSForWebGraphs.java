@@ -0,0 +1,71 @@
+package algorithmsForWebGraphs;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.webgraph.ImmutableGraph;
+
+import java.util.Arrays;
+
+/**
+ * A BFS on an {@link ImmutableGraph} that stops as soon as it has found a given number of nodes: the start
+ * node and its nearest neighbours, as visited by the BFS.
+ * The BFS runs in the {@link BFSWorkspace} of the current thread.
+ */
+public class NeighborsBFSForWebGraphs {
+    private final IntArrayList neighbors;
+    private final int depth;
+
+    public NeighborsBFSForWebGraphs(ImmutableGraph graph, int start, int numNeighbors) {
+        if (numNeighbors < 1) {
+            throw new IllegalArgumentException("numNeighbors must be positive.");
+        }
+
+        BFSWorkspace workspace = BFSWorkspace.get(graph.numNodes());
+        final int[] queue = workspace.queue();
+        final int[] distances = workspace.distances();
+        final int[] marks = workspace.marks();
+        final int epoch = workspace.epoch();
+
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        marks[start] = epoch;
+        distances[start] = 0;
+
+        search:
+        while (head < tail && tail < numNeighbors) {
+            int current = queue[head++];
+            int currentDistance = distances[current];
+
+            int[] successors = graph.successorArray(current);
+            int degree = graph.outdegree(current);
+
+            for (int i = 0; i < degree; i++) {
+                int neighbor = successors[i];
+                if (marks[neighbor] != epoch) {
+                    marks[neighbor] = epoch;
+                    queue[tail++] = neighbor;
+                    distances[neighbor] = currentDistance + 1;
+                    if (tail == numNeighbors) {
+                        break search;
+                    }
+                }
+            }
+        }
+
+        neighbors = IntArrayList.wrap(Arrays.copyOf(queue, tail));
+        depth = distances[queue[tail - 1]];
+    }
+
+    /**
+     * @return the start node and its nearest neighbours, sorted by distance
+     */
+    public IntArrayList getNeighbors() {
+        return neighbors;
+    }
+
+    /**
+     * @return the distance of the furthest of the neighbours
+     */
+    public int getDepth() {
+        return depth;
+    }
+}
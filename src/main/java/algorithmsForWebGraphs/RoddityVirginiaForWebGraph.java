@@ -1,11 +1,9 @@
 package algorithmsForWebGraphs;
 
-import algorithms.NeighborsBFS;
-import it.unimi.dsi.fastutil.ints.IntIntPair;
+import buildOffsetForDataset.GraphStore;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.webgraph.ImmutableGraph;
 import it.unimi.dsi.webgraph.NodeIterator;
-import it.unimi.dsi.webgraph.Transform;
-import org.jgrapht.webgraph.ImmutableDirectedGraphAdapter;
 
 import java.util.*;
 
@@ -14,9 +12,18 @@ public class RoddityVirginiaForWebGraph {
     private final int s;
     private int numBFS = 0;
     private final ImmutableGraph g;
+    private final ImmutableGraph reverse;
 
     public RoddityVirginiaForWebGraph(ImmutableGraph g, int s) {
+        this(g, GraphStore.transpose(g), s);
+    }
+
+    /**
+     * @param reverse the transpose of <var>g</var>
+     */
+    public RoddityVirginiaForWebGraph(ImmutableGraph g, ImmutableGraph reverse, int s) {
         this.g = g;
+        this.reverse = reverse;
         this.s = s;
     }
 
@@ -24,13 +31,12 @@ public class RoddityVirginiaForWebGraph {
 
     public Integer run() {
         numBFS = 0;
-        ImmutableGraph reverse = Transform.transpose(g);
         int maxEcc = 0;
 
         // Compute Hitting Set of size n/s * log(n)
 //        Set<Integer> hittingSet = new HashSet<>();
         //int[] hittingSet = new int[g.numNodes()];
-        LinkedList<Integer> hittingSet = new LinkedList<>();
+        IntArrayList hittingSet = new IntArrayList();
 
     
         int bound = (int) (Integer.MAX_VALUE * (Math.log(g.numNodes()) / s));
@@ -46,24 +52,26 @@ public class RoddityVirginiaForWebGraph {
         int hittingSetSize = hittingSet.size();
         System.out.println("hitting set of size: " + hittingSet.size());
 
-        // Compute BFS from hitting set
-        int i = 1;
-        for (Integer v : hittingSet) {
+        // Compute BFS from hitting set, a batch of sources at a time
+        int[] hittingSetArray = hittingSet.toIntArray();
+
+        for (int from = 0; from < hittingSetSize; from += MultiSourceBFS.BATCH_SIZE) {
             long start = System.nanoTime();
 
-            maxEcc = Math.max(maxEcc, WebGraphBFS.calculateEccentricity(g, v));
-            numBFS++;
+            int batchSize = Math.min(MultiSourceBFS.BATCH_SIZE, hittingSetSize - from);
+            maxEcc = Math.max(maxEcc, MultiSourceBFS.run(g, hittingSetArray, from, batchSize, false).getMaxEccentricity());
+            numBFS += batchSize;
 
             long timeElapsed = System.nanoTime() - start;
             long millisElapsed = timeElapsed / 1_000_000;
             double seccondsElapsed = ((double)millisElapsed) / 1_000;
-            System.out.println("finished " + i++ + " / " + hittingSetSize + " from the hitting set after " + seccondsElapsed + " secconds");
+            System.out.println("finished " + (from + batchSize) + " / " + hittingSetSize + " from the hitting set after " + seccondsElapsed + " secconds");
         }
 
         //Find vertex furthest from hitting set
         long start = System.nanoTime();
 
-        Integer w = WebGraphBFS.bfsFromQueue(reverse, hittingSet).getFurthestVertex();
+        Integer w = WebGraphBFS.bfsFromSources(reverse, hittingSet).getFurthestVertex();
 
         numBFS++;
 
@@ -75,24 +83,23 @@ public class RoddityVirginiaForWebGraph {
 
 
         // Compute BFS_in from every vertex in N_s(w)
-        ImmutableDirectedGraphAdapter adapter = new ImmutableDirectedGraphAdapter(g, reverse);
-        NeighborsBFS<Integer, IntIntPair> neighborsBFS = new NeighborsBFS<>(adapter, w, s);
-        Set<Integer> neighbours = neighborsBFS.getNeighbors();
-        adapter = null;
+        NeighborsBFSForWebGraphs neighborsBFS = new NeighborsBFSForWebGraphs(g, w, s);
+        int[] neighboursArray = neighborsBFS.getNeighbors().toIntArray();
         neighborsBFS = null;
 
-        final int numNeighbours = neighbours.size();
-        i = 1;
-        for (Integer v : neighbours) {
+        final int numNeighbours = neighboursArray.length;
+
+        for (int from = 0; from < numNeighbours; from += MultiSourceBFS.BATCH_SIZE) {
             start = System.nanoTime();
 
-            maxEcc = Math.max(maxEcc, WebGraphBFS.calculateEccentricity(reverse, v));
-            numBFS++;
+            int batchSize = Math.min(MultiSourceBFS.BATCH_SIZE, numNeighbours - from);
+            maxEcc = Math.max(maxEcc, MultiSourceBFS.run(reverse, neighboursArray, from, batchSize, false).getMaxEccentricity());
+            numBFS += batchSize;
 
             timeElapsed = System.nanoTime() - start;
             millisElapsed = timeElapsed / 1_000_000;
             seccondsElapsed = ((double)millisElapsed) / 1_000;
-            System.out.println("finished " + i++ + " / " + numNeighbours + " from the neighbours of w in " + seccondsElapsed + " secconds");
+            System.out.println("finished " + (from + batchSize) + " / " + numNeighbours + " from the neighbours of w in " + seccondsElapsed + " secconds");
         }
 
         return maxEcc;
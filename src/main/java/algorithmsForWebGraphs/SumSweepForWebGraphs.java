@@ -25,49 +25,23 @@
 
 package algorithmsForWebGraphs;
 
+import algorithms.IndexedVertexHeap;
+import buildOffsetForDataset.GraphStore;
 import it.unimi.dsi.logging.ProgressLogger;
 import it.unimi.dsi.webgraph.ImmutableGraph;
 import it.unimi.dsi.webgraph.LazyIntIterator;
-import it.unimi.dsi.webgraph.Transform;
 import it.unimi.dsi.webgraph.algo.StronglyConnectedComponents;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
+import java.util.BitSet;
 
 
 public class SumSweepForWebGraphs {
     private static final boolean DEBUG = true;
 
 
-    /**
-     * Returns the index <var>i</var> such that <var>vec</var>[<var>i</var>] is
-     * maximum, among all indices such that <var>acc</var>[<var>i</var>] is
-     * true. In case of tie, the index maximizing <var>tieBreak</var> is chosen.
-     *
-     * @param vec
-     *            the vector of which we want to compute the argMax
-     * @param tieBreak
-     *            the tiebreak vector
-     * @param acc
-     *            the vector used to decide if an index is acceptable: a
-     *            negative value means that the vertex is acceptable
-     * @return the value <var>i</var> such that <var>vec</var>[<var>i</var>] is
-     *         maximum
-     */
-    public static int argMax(final int[] vec, final int[] tieBreak, final boolean acc[]) {
-
-        int max = Integer.MIN_VALUE, maxTieBreak = Integer.MIN_VALUE, argMax = -1;
-        for (int i = 0; i < vec.length; i++) {
-            if (acc[i] && (vec[i] > max || (vec[i] == max && tieBreak[i] > maxTieBreak))) {
-                argMax = i;
-                max = vec[i];
-                maxTieBreak = tieBreak[i];
-            }
-        }
-        return argMax;
-    }
-
     private final static Logger LOGGER = LoggerFactory.getLogger(it.unimi.dsi.webgraph.algo.SumSweepDirectedDiameterRadius.class);
 
     /** The graph under examination. */
@@ -108,11 +82,28 @@ public class SumSweepForWebGraphs {
     protected int uB[];
     private final int totDistF[];
     private final int totDistB[];
+    /**
+     * The vertices whose forward eccentricity is not guaranteed, by decreasing <var>totDistF</var> and
+     * then by decreasing <var>lF</var>.
+     */
+    private final IndexedVertexHeap heapF;
+    /**
+     * The vertices whose backward eccentricity is not guaranteed, by decreasing <var>totDistB</var> and
+     * then by decreasing <var>lB</var>.
+     */
+    private final IndexedVertexHeap heapB;
 
     public SumSweepForWebGraphs(final ImmutableGraph graph, final ProgressLogger pl) {
+        this(graph, GraphStore.transpose(graph), pl);
+    }
+
+    /**
+     * @param revgraph the transpose of <var>graph</var>
+     */
+    public SumSweepForWebGraphs(final ImmutableGraph graph, final ImmutableGraph revgraph, final ProgressLogger pl) {
         this.pl = pl;
         this.graph = graph;
-        this.revgraph = Transform.transpose(graph);
+        this.revgraph = revgraph;
         this.nn = graph.numNodes();
         this.eccF = new int[nn];
         this.eccB = new int[nn];
@@ -129,11 +120,23 @@ public class SumSweepForWebGraphs {
 
         Arrays.fill(eccF, -1);
         Arrays.fill(eccB, -1);
+        Arrays.fill(dist, -1);
         Arrays.fill(uF, nn + 1);
         Arrays.fill(uB, nn + 1);
         Arrays.fill(toCompleteF, true);
         Arrays.fill(toCompleteB, true);
         this.dL = 0;
+
+        final BitSet all = new BitSet(nn);
+        all.set(0, nn);
+        heapF = new IndexedVertexHeap(nn, all, (a, b) -> {
+            final int c = Integer.compare(totDistF[b], totDistF[a]);
+            return c != 0 ? c : Integer.compare(lF[b], lF[a]);
+        });
+        heapB = new IndexedVertexHeap(nn, all, (a, b) -> {
+            final int c = Integer.compare(totDistB[b], totDistB[a]);
+            return c != 0 ? c : Integer.compare(lB[b], lB[a]);
+        });
     }
 
     private void stepSumSweep(final int start, final boolean forward) {
@@ -146,8 +149,7 @@ public class SumSweepForWebGraphs {
         int v, w, eccStart;
         int[] l, lOther, u, uOther, totDistOther, ecc, eccOther;
         boolean[] toComplete, toCompleteOther;
-
-        Arrays.fill(dist, -1);
+        IndexedVertexHeap heap, heapOther;
 
         ImmutableGraph g;
 
@@ -162,6 +164,8 @@ public class SumSweepForWebGraphs {
             eccOther = eccB;
             toComplete = toCompleteF;
             toCompleteOther = toCompleteB;
+            heap = heapF;
+            heapOther = heapB;
         } else {
             l = lB;
             lOther = lF;
@@ -173,6 +177,8 @@ public class SumSweepForWebGraphs {
             eccOther = eccF;
             toComplete = toCompleteB;
             toCompleteOther = toCompleteF;
+            heap = heapB;
+            heapOther = heapF;
         }
 
         LazyIntIterator iter;
@@ -180,6 +186,8 @@ public class SumSweepForWebGraphs {
         queue[endQ++] = start;
         dist[start] = 0;
 
+        // the bounds of each node are updated when it leaves the queue, so only the reached nodes are
+        // ever looked at
         while (startQ < endQ) {
             v = queue[startQ++];
             iter = g.successors(v);
@@ -190,23 +198,6 @@ public class SumSweepForWebGraphs {
                     queue[endQ++] = w;
                 }
             }
-        }
-
-        eccStart = dist[queue[endQ - 1]];
-
-        l[start] = eccStart;
-        u[start] = eccStart;
-        ecc[start] = eccStart;
-        toComplete[start] = false;
-
-        if (dL < eccStart) {
-            dL = eccStart;
-        }
-
-        for (v = nn - 1; v >= 0; v--) {
-
-            if (dist[v] == -1)
-                continue;
 
             totDistOther[v] += dist[v];
 
@@ -219,7 +210,30 @@ public class SumSweepForWebGraphs {
                     }
                 }
             }
+
+            if (toCompleteOther[v]) {
+                heapOther.changed(v);
+            } else {
+                heapOther.remove(v);
+            }
         }
+
+        eccStart = dist[queue[endQ - 1]];
+        // dist is -1 for every node between two BFSs
+        for (int i = 0; i < endQ; i++) {
+            dist[queue[i]] = -1;
+        }
+
+        l[start] = eccStart;
+        u[start] = eccStart;
+        ecc[start] = eccStart;
+        toComplete[start] = false;
+        heap.remove(start);
+
+        if (dL < eccStart) {
+            dL = eccStart;
+        }
+
         if (pl != null)
             pl.update();
     }
@@ -240,12 +254,12 @@ public class SumSweepForWebGraphs {
 
         for (int i = 2; i < iter; i++) {
             if (i % 2 == 0) {
-                final int v = argMax(totDistB, lB, toCompleteB);
+                final int v = heapB.first();
                 if (DEBUG)
                     LOGGER.debug("Performing initial SumSweep visit from " + v + ".");
                 this.stepSumSweep(v, false);
             } else {
-                final int v = argMax(totDistF, lF, toCompleteF);
+                final int v = heapF.first();
                 if (DEBUG)
                     LOGGER.debug("Performing initial SumSweep visit from " + v + ".");
                 this.stepSumSweep(v, true);
@@ -1,6 +1,9 @@
 package algorithmsForWebGraphs;
 
+import it.unimi.dsi.fastutil.ints.IntList;
 import it.unimi.dsi.webgraph.ImmutableGraph;
+import it.unimi.dsi.webgraph.LazyIntIterator;
+import it.unimi.dsi.webgraph.NodeIterator;
 
 import java.util.*;
 
@@ -12,10 +15,16 @@ public class WebGraphBFS {
     public static class BFSResult {
         private final int furthestVertex;
         private final int maxDepth;
+        private final int[] distances;
 
         public BFSResult(int furthestVertex, int maxDepth) {
+            this(furthestVertex, maxDepth, null);
+        }
+
+        public BFSResult(int furthestVertex, int maxDepth, int[] distances) {
             this.furthestVertex = furthestVertex;
             this.maxDepth = maxDepth;
+            this.distances = distances;
         }
 
         public int getFurthestVertex() {
@@ -26,6 +35,16 @@ public class WebGraphBFS {
             return maxDepth;
         }
 
+        /**
+         * @return the distance of every vertex from the sources (-1 if it was not reached)
+         */
+        public int[] getDistances() {
+            if (distances == null) {
+                throw new UnsupportedOperationException("The distances were not kept.");
+            }
+            return distances;
+        }
+
         @Override
         public String toString() {
             return "Furthest Vertex: " + furthestVertex + ", Max Depth: " + maxDepth;
@@ -34,51 +53,172 @@ public class WebGraphBFS {
 
 
     /**
-     * doing a bfs while initializing the queue of the bfs with the given LinkedList
+     * The nodes reached by a bfs in the order they were visited, with the boundaries of each level,
+     * so that the nodes at any distance from the start node are a contiguous slice of {@link #getOrder()}.
+     */
+    public static class BFSLevels {
+        private final int[] order;
+        private final int[] levelOffsets;
+
+        public BFSLevels(int[] order, int[] levelOffsets) {
+            this.order = order;
+            this.levelOffsets = levelOffsets;
+        }
+
+        /**
+         * @return the reached nodes, sorted by distance from the start node
+         */
+        public int[] getOrder() {
+            return order;
+        }
+
+        public int getNumReached() {
+            return order.length;
+        }
+
+        public int getEccentricity() {
+            return levelOffsets.length - 2;
+        }
+
+        /**
+         * @return the position in {@link #getOrder()} of the first node at distance <var>d</var>
+         */
+        public int getLevelStart(int d) {
+            return levelOffsets[d];
+        }
+
+        /**
+         * @return the position in {@link #getOrder()} after the last node at distance <var>d</var>
+         */
+        public int getLevelEnd(int d) {
+            return levelOffsets[d + 1];
+        }
+    }
+
+
+    /**
+     * Performs BFS on the graph starting from a given node, and indexes the nodes it reaches by level.
      *
      * @param graph The immutable graph.
-     * @param initQueue The verticies to initiallize the queue with
-     * @return the result og the bfs
+     * @param startNode The node to start the BFS from.
+     * @return the levels of the bfs
      */
-    public static BFSResult bfsFromQueue(ImmutableGraph graph, LinkedList<Integer> initQueue) {
-        if (initQueue.isEmpty()) {
-            throw new IllegalArgumentException("initQueue cannot be empty.");
+    public static BFSLevels levels(ImmutableGraph graph, int startNode) {
+        BFSWorkspace workspace = BFSWorkspace.get(graph.numNodes());
+        final int[] queue = workspace.queue();
+        final int[] distances = workspace.distances();
+        final int[] marks = workspace.marks();
+        final int epoch = workspace.epoch();
+
+        int head = 0, tail = 0;
+        queue[tail++] = startNode;
+        marks[startNode] = epoch;
+        distances[startNode] = 0;
+
+        while (head < tail) {
+            int current = queue[head++];
+            int currentDistance = distances[current];
+
+            int[] neighbors = graph.successorArray(current);
+            int degree = graph.outdegree(current);
+
+            for (int i = 0; i < degree; i++) {
+                int neighbor = neighbors[i];
+                if (marks[neighbor] != epoch) {
+                    marks[neighbor] = epoch;
+                    queue[tail++] = neighbor;
+                    distances[neighbor] = currentDistance + 1;
+                }
+            }
         }
 
-        Queue<Integer> queue = new LinkedList<>(initQueue);
-        Set<Integer> visited = new HashSet<>(initQueue);
-        Map<Integer, Integer> distances = new HashMap<>();
+        // the queue is sorted by distance, so each level is a contiguous slice of it
+        final int[] order = Arrays.copyOf(queue, tail);
+        final int eccentricity = distances[order[tail - 1]];
+        final int[] levelOffsets = new int[eccentricity + 2];
+        for (int i = 0, d = 0; i < tail; i++) {
+            while (d < distances[order[i]]) {
+                levelOffsets[++d] = i;
+            }
+        }
+        levelOffsets[eccentricity + 1] = tail;
+
+        return new BFSLevels(order, levelOffsets);
+    }
 
-        // Initialize distances for all nodes in the hittingSet
-        for (int node : initQueue) {
-            distances.put(node, 0);
+
+    /**
+     * doing a bfs while initializing the queue of the bfs with the given sources.
+     *
+     * @param graph The immutable graph.
+     * @param sources The vertices to initialize the queue with
+     * @return the result of the bfs
+     */
+    public static BFSResult bfsFromSources(ImmutableGraph graph, IntList sources) {
+        return bfsFromSources(graph, sources.toIntArray(), false);
+    }
+
+    /**
+     * doing a bfs while initializing the queue of the bfs with the given sources.
+     * The BFS runs in the {@link BFSWorkspace} of the current thread, so it only allocates the
+     * distance array, if it is requested.
+     *
+     * @param graph The immutable graph.
+     * @param sources The vertices to initialize the queue with
+     * @param keepDistances Whether to return the distance of every vertex from the sources.
+     * @return the result of the bfs
+     */
+    public static BFSResult bfsFromSources(ImmutableGraph graph, int[] sources, boolean keepDistances) {
+        if (sources.length == 0) {
+            throw new IllegalArgumentException("sources cannot be empty.");
         }
 
-        int furthestVertex = -1;
-        int maxDistance = -1;
+        final int numNodes = graph.numNodes();
+        BFSWorkspace workspace = BFSWorkspace.get(numNodes);
+        final int[] queue = workspace.queue();
+        final int[] distances = workspace.distances();
+        final int[] marks = workspace.marks();
+        final int epoch = workspace.epoch();
+
+        int head = 0, tail = 0;
+        for (int source : sources) {
+            if (marks[source] != epoch) {
+                marks[source] = epoch;
+                distances[source] = 0;
+                queue[tail++] = source;
+            }
+        }
 
-        // BFS from all nodes in the hittingSet
-        while (!queue.isEmpty()) {
-            int current = queue.poll();
-            int currentDistance = distances.get(current);
+        // BFS from all the sources
+        while (head < tail) {
+            int current = queue[head++];
+            int currentDistance = distances[current];
 
             int[] neighbors = graph.successorArray(current);
-            for (int neighbor : neighbors) {
-                if (!visited.contains(neighbor)) {
-                    visited.add(neighbor);
-                    queue.add(neighbor);
-                    distances.put(neighbor, currentDistance + 1);
+            int degree = graph.outdegree(current);
 
-                    // Check if this is the furthest vertex found so far
-                    if (currentDistance + 1 > maxDistance) {
-                        maxDistance = currentDistance + 1;
-                        furthestVertex = neighbor;
-                    }
+            for (int i = 0; i < degree; i++) {
+                int neighbor = neighbors[i];
+                if (marks[neighbor] != epoch) {
+                    marks[neighbor] = epoch;
+                    queue[tail++] = neighbor;
+                    distances[neighbor] = currentDistance + 1;
                 }
             }
         }
 
-        return new BFSResult(furthestVertex, maxDistance);
+        // the last vertex dequeued is the furthest from the sources
+        final int furthestVertex = queue[tail - 1];
+
+        int[] result = null;
+        if (keepDistances) {
+            result = new int[numNodes];
+            for (int v = 0; v < numNodes; v++) {
+                result[v] = marks[v] == epoch ? distances[v] : -1;
+            }
+        }
+
+        return new BFSResult(furthestVertex, distances[furthestVertex], result);
     }
 
 
@@ -123,20 +263,92 @@ public class WebGraphBFS {
     }
 
 
+    /**
+     * Performs BFS on the graph starting from a given node and returns the eccentricity.
+     * The BFS runs in the {@link BFSWorkspace} of the current thread, so it does not allocate anything.
+     *
+     * @param graph The immutable graph.
+     * @param startNode The node to start the BFS from.
+     * @return The eccentricity of the startNode (i.e., the maximum depth reached).
+     */
     public static int calculateEccentricity(ImmutableGraph graph, int startNode) {
-        Queue<Integer> queue = new LinkedList<>();
-        boolean[] visited = new boolean[graph.numNodes()];
-        int[] distances = new int[graph.numNodes()];
+        BFSWorkspace workspace = BFSWorkspace.get(graph.numNodes());
+        final int[] queue = workspace.queue();
+        final int[] distances = workspace.distances();
+        final int[] marks = workspace.marks();
+        final int epoch = workspace.epoch();
+
+        int head = 0, tail = 0;
+        queue[tail++] = startNode;
+        marks[startNode] = epoch;
+        distances[startNode] = 0;
 
-        queue.add(startNode);
-        visited[startNode] = true;
+        // BFS from the startNode
+        while (head < tail) {
+            int current = queue[head++];
+            int currentDistance = distances[current];
+
+            int[] neighbors = graph.successorArray(current);
+            int degree = graph.outdegree(current);
+
+            for (int i = 0; i < degree; i++) {
+                int neighbor = neighbors[i];
+                if (marks[neighbor] != epoch) {
+                    marks[neighbor] = epoch;
+                    queue[tail++] = neighbor;
+                    distances[neighbor] = currentDistance + 1;
+                }
+            }
+        }
+
+        // the last node dequeued is at maximum depth
+        return distances[queue[tail - 1]];
+    }
+
+
+    /**
+     * Answers whether the eccentricity of a node is greater than <var>threshold</var>, computing it exactly
+     * only if it is. The BFS stops as soon as the answer is decided: when all the reachable nodes have
+     * been visited, when <var>upperBound</var> is reached, or when the nodes still unvisited are too few to
+     * go beyond <var>threshold</var>, since each of them can add at most one level.
+     * The BFS runs in the {@link BFSWorkspace} of the current thread.
+     *
+     * @param graph The immutable graph.
+     * @param startNode The node to start the BFS from.
+     * @param threshold The eccentricities at most this value are not needed exactly.
+     * @param upperBound An upper bound on the eccentricity of the startNode.
+     * @param reachable An upper bound on the number of nodes reachable from the startNode (e.g. the
+     *                  number of nodes of the graph).
+     * @return The eccentricity of the startNode if it is greater than <var>threshold</var>, or an upper bound
+     * of it that is at most <var>threshold</var> otherwise.
+     */
+    public static int probeEccentricity(ImmutableGraph graph, int startNode, int threshold, int upperBound, int reachable) {
+        BFSWorkspace workspace = BFSWorkspace.get(graph.numNodes());
+        final int[] queue = workspace.queue();
+        final int[] distances = workspace.distances();
+        final int[] marks = workspace.marks();
+        final int epoch = workspace.epoch();
+
+        int head = 0, tail = 0;
+        queue[tail++] = startNode;
+        marks[startNode] = epoch;
         distances[startNode] = 0;
 
-        int eccentricity = 0;
+        while (head < tail) {
+            final int lastDistance = distances[queue[tail - 1]];
+            if (tail >= reachable) {
+                // every reachable node is already in the queue
+                return lastDistance;
+            }
+            if (lastDistance >= upperBound) {
+                return upperBound;
+            }
+            final int bound = lastDistance + (reachable - tail);
+            if (bound <= threshold) {
+                return bound;
+            }
 
-        // BFS from the startNode
-        while (!queue.isEmpty()) {
-            int current = queue.poll();
+            int current = queue[head++];
             int currentDistance = distances[current];
 
             int[] neighbors = graph.successorArray(current);
@@ -144,17 +356,153 @@ public class WebGraphBFS {
 
             for (int i = 0; i < degree; i++) {
                 int neighbor = neighbors[i];
-                if (!visited[neighbor]) {
-                    visited[neighbor] = true;
-                    queue.add(neighbor);
+                if (marks[neighbor] != epoch) {
+                    marks[neighbor] = epoch;
+                    queue[tail++] = neighbor;
                     distances[neighbor] = currentDistance + 1;
+                }
+            }
+        }
 
-                    // Update eccentricity (maximum depth reached)
-                    eccentricity = Math.max(eccentricity, distances[neighbor]);
+        return distances[queue[tail - 1]];
+    }
+
+
+    /**
+     * A top-down step is replaced by a bottom-up step when the edges out of the frontier are more
+     * than the edges out of the unvisited vertices divided by this value.
+     */
+    private static final int ALPHA = 14;
+    /**
+     * A bottom-up step is replaced by a top-down step when the frontier is shrinking and holds
+     * less than the number of nodes divided by this value.
+     */
+    private static final int BETA = 24;
+
+    /**
+     * Performs a direction-optimizing BFS (Beamer, Asanovic and Patterson) on the graph starting from a
+     * given node, and returns the eccentricity.
+     * Each level is expanded either top-down, by scanning the successors of the frontier, or bottom-up,
+     * by scanning the predecessors of the unvisited nodes until one of them is in the frontier. The
+     * direction is chosen at every level by comparing the size of the frontier with the rest of the graph.
+     * The BFS runs in the {@link BFSWorkspace} of the current thread.
+     *
+     * The number of arcs of the graph is needed to choose the direction; when the graph does not know it,
+     * the arcs are counted at every call, so callers performing many BFSs should use
+     * {@link #calculateEccentricity(ImmutableGraph, ImmutableGraph, int, long)} instead.
+     *
+     * @param graph The immutable graph.
+     * @param transpose The transpose of the graph (or the graph itself, if it is symmetric).
+     * @param startNode The node to start the BFS from.
+     * @return The eccentricity of the startNode (i.e., the maximum depth reached).
+     */
+    public static int calculateEccentricity(ImmutableGraph graph, ImmutableGraph transpose, int startNode) {
+        return calculateEccentricity(graph, transpose, startNode, numArcs(graph));
+    }
+
+    /**
+     * As {@link #calculateEccentricity(ImmutableGraph, ImmutableGraph, int)}, given the number of arcs of
+     * the graph, as returned by {@link #numArcs(ImmutableGraph)}.
+     */
+    public static int calculateEccentricity(ImmutableGraph graph, ImmutableGraph transpose, int startNode, long numArcs) {
+        final int numNodes = graph.numNodes();
+        BFSWorkspace workspace = BFSWorkspace.get(numNodes);
+        int[] frontier = workspace.queue();
+        int[] next = workspace.secondQueue();
+        final int[] distances = workspace.distances();
+        final int[] marks = workspace.marks();
+        final int epoch = workspace.epoch();
+
+        long unexploredEdges = numArcs;
+        long frontierEdges = graph.outdegree(startNode);
+        unexploredEdges -= frontierEdges;
+
+        frontier[0] = startNode;
+        int frontierSize = 1;
+        marks[startNode] = epoch;
+        distances[startNode] = 0;
+
+        int eccentricity = 0;
+        boolean bottomUp = false;
+
+        while (frontierSize > 0) {
+            final int currentDistance = eccentricity;
+            int nextSize = 0;
+
+            if (!bottomUp && frontierEdges > unexploredEdges / ALPHA) {
+                bottomUp = true;
+            }
+
+            if (bottomUp) {
+                for (int v = 0; v < numNodes; v++) {
+                    if (marks[v] == epoch) {
+                        continue;
+                    }
+
+                    LazyIntIterator predecessors = transpose.successors(v);
+                    for (int u; (u = predecessors.nextInt()) != -1; ) {
+                        if (marks[u] == epoch && distances[u] == currentDistance) {
+                            marks[v] = epoch;
+                            distances[v] = currentDistance + 1;
+                            next[nextSize++] = v;
+                            break;
+                        }
+                    }
+                }
+            } else {
+                for (int j = 0; j < frontierSize; j++) {
+                    int current = frontier[j];
+                    int[] neighbors = graph.successorArray(current);
+                    int degree = graph.outdegree(current);
+
+                    for (int i = 0; i < degree; i++) {
+                        int neighbor = neighbors[i];
+                        if (marks[neighbor] != epoch) {
+                            marks[neighbor] = epoch;
+                            distances[neighbor] = currentDistance + 1;
+                            next[nextSize++] = neighbor;
+                        }
+                    }
                 }
             }
+
+            if (nextSize == 0) {
+                break;
+            }
+
+            frontierEdges = 0;
+            for (int j = 0; j < nextSize; j++) {
+                frontierEdges += graph.outdegree(next[j]);
+            }
+            unexploredEdges -= frontierEdges;
+
+            if (bottomUp && nextSize < frontierSize && nextSize < numNodes / BETA) {
+                bottomUp = false;
+            }
+
+            int[] temp = frontier;
+            frontier = next;
+            next = temp;
+            frontierSize = nextSize;
+            eccentricity++;
         }
 
         return eccentricity;
     }
+
+    /**
+     * Returns the number of arcs of the graph, counting them if the graph does not know it.
+     */
+    public static long numArcs(ImmutableGraph graph) {
+        try {
+            return graph.numArcs();
+        } catch (UnsupportedOperationException e) {
+            long numArcs = 0;
+            for (NodeIterator it = graph.nodeIterator(); it.hasNext(); ) {
+                it.nextInt();
+                numArcs += it.outdegree();
+            }
+            return numArcs;
+        }
+    }
 }
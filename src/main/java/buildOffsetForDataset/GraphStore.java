@@ -0,0 +1,148 @@
+package buildOffsetForDataset;
+
+import it.unimi.dsi.logging.ProgressLogger;
+import it.unimi.dsi.webgraph.BVGraph;
+import it.unimi.dsi.webgraph.ImmutableGraph;
+import it.unimi.dsi.webgraph.Transform;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Keeps the transpose and the symmetrized version of a graph on disk, next to the graph itself, as the
+ * BVGraphs <code>&lt;basename&gt;-t</code> and <code>&lt;basename&gt;-sym</code>.
+ * They are built once, offline, and loaded memory-mapped by every later run, instead of being rebuilt
+ * in memory by {@link Transform#transpose(ImmutableGraph)} each time an algorithm needs them.
+ * <p>
+ * A stored graph is used only if it is not older than the graph, and has its number of nodes (and, for
+ * the transpose, its number of arcs), so that a version left over from an earlier graph is never loaded.
+ */
+public class GraphStore {
+    public static final String TRANSPOSE_SUFFIX = "-t";
+    public static final String SYMMETRIZED_SUFFIX = "-sym";
+
+    /** The number of arcs sorted in memory at a time by the offline transformations. */
+    private static final int BATCH_SIZE = 1_000_000;
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(GraphStore.class);
+
+    private GraphStore() {
+    }
+
+    /**
+     * builds the transpose and the symmetrized version of a graph, if they are not already stored, or if the
+     * stored ones do not match the graph.
+     * @param basename - the basename of the graph.
+     * @return true on success, and false otherwise, after logging the error.
+     */
+    public static boolean build(String basename) {
+        try {
+            ProgressLogger pl = new ProgressLogger();
+            // an offline graph only reads its properties until it is scanned
+            ImmutableGraph graph = BVGraph.loadOffline(basename);
+            if (!isCurrent(graph, basename, TRANSPOSE_SUFFIX)) {
+                BVGraph.store(Transform.transposeOffline(graph, BATCH_SIZE, null, pl), basename + TRANSPOSE_SUFFIX, pl);
+            }
+            if (!isCurrent(graph, basename, SYMMETRIZED_SUFFIX)) {
+                BVGraph.store(Transform.symmetrizeOffline(graph, BATCH_SIZE, null, pl), basename + SYMMETRIZED_SUFFIX, pl);
+            }
+            return true;
+        } catch (IOException e) {
+            LOGGER.error("Cannot build the transpose and the symmetrized version of " + basename, e);
+            return false;
+        }
+    }
+
+    /**
+     * builds the transposes and the symmetrized versions of graphs, if they are not already stored.
+     * @param basenames - the basenames of the graphs.
+     * @return true if building all the graphs was done successfully, and false otherwise.
+     */
+    public static boolean build(String[] basenames) {
+        boolean flag = true;
+        for (String basename : basenames) {
+            if (!build(basename)) {
+                System.out.println("failed at basename: " + basename);
+                flag = false;
+            }
+        }
+
+        return flag;
+    }
+
+    /**
+     * Returns the transpose of a graph: the stored one, memory-mapped, if the graph was loaded from disk
+     * and its transpose was built by {@link #build(String)}, or {@link Transform#transpose(ImmutableGraph)}
+     * otherwise.
+     */
+    public static ImmutableGraph transpose(ImmutableGraph graph) {
+        ImmutableGraph stored = loadStored(graph, TRANSPOSE_SUFFIX);
+        return stored != null ? stored : Transform.transpose(graph);
+    }
+
+    /**
+     * Returns the symmetrized version of a graph: the stored one, memory-mapped, if the graph was loaded
+     * from disk and its symmetrized version was built by {@link #build(String)}, or
+     * {@link Transform#symmetrize(ImmutableGraph)} otherwise.
+     */
+    public static ImmutableGraph symmetrize(ImmutableGraph graph) {
+        ImmutableGraph stored = loadStored(graph, SYMMETRIZED_SUFFIX);
+        return stored != null ? stored : Transform.symmetrize(graph);
+    }
+
+    /**
+     * @return the graph stored with the basename of <var>graph</var> followed by <var>suffix</var>,
+     * or null if there is none, or if it does not match <var>graph</var>.
+     */
+    private static ImmutableGraph loadStored(ImmutableGraph graph, String suffix) {
+        CharSequence basename = graph.basename();
+        if (basename == null || !isStored(basename + suffix)) {
+            return null;
+        }
+
+        try {
+            if (!isCurrent(graph, basename, suffix)) {
+                LOGGER.warn(basename + suffix + " does not match " + basename + ", so it is not used; rebuild it with GraphStore.build.");
+                return null;
+            }
+            return BVGraph.loadMapped(basename + suffix);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load " + basename + suffix, e);
+        }
+    }
+
+    /**
+     * @return whether the graph stored with <var>basename</var> followed by <var>suffix</var> exists, is not
+     * older than <var>graph</var>, and has as many nodes as <var>graph</var>, and as many arcs if it is the
+     * transpose, or between as many and twice as many if it is the symmetrized version.
+     */
+    private static boolean isCurrent(ImmutableGraph graph, CharSequence basename, String suffix) throws IOException {
+        if (!isStored(basename + suffix) || new File(basename + suffix + BVGraph.GRAPH_EXTENSION).lastModified()
+                < new File(basename + BVGraph.GRAPH_EXTENSION).lastModified()) {
+            return false;
+        }
+
+        ImmutableGraph stored = BVGraph.loadOffline(basename + suffix);
+        if (stored.numNodes() != graph.numNodes()) {
+            return false;
+        }
+        long numArcs;
+        try {
+            numArcs = graph.numArcs();
+        } catch (UnsupportedOperationException e) {
+            // only the number of nodes can be checked
+            return true;
+        }
+        return suffix.equals(TRANSPOSE_SUFFIX) ? stored.numArcs() == numArcs
+                : stored.numArcs() >= numArcs && stored.numArcs() <= 2 * numArcs;
+    }
+
+    private static boolean isStored(String basename) {
+        return new File(basename + BVGraph.GRAPH_EXTENSION).exists()
+                && new File(basename + BVGraph.OFFSETS_EXTENSION).exists()
+                && new File(basename + ImmutableGraph.PROPERTIES_EXTENSION).exists();
+    }
+}
@@ -0,0 +1,72 @@
+package algorithms;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+/**
+ * Measures the time of one call of the {@link BoundKernels} kernel, i.e. the overhead it adds to an
+ * AllCCUpperBound step of ExactSumSweep, with the scalar implementation and with the one in use (the SIMD
+ * one, if it was compiled and the JVM was started with <code>--add-modules jdk.incubator.vector</code>).
+ * It is not part of the library: run it from the test classes.
+ * <p>
+ * Usage: <code>BoundKernelsBenchmark [numVertices [repetitions]]</code>, by default 100M vertices and 10
+ * repetitions, after as many unmeasured ones. The arrays take 16 bytes per vertex, so 100M vertices need
+ * a heap of at least 2GB.
+ */
+public class BoundKernelsBenchmark {
+    public static void main(String[] args) {
+        final int n = args.length > 0 ? Integer.parseInt(args[0]) : 100_000_000;
+        final int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        final int numComponents = Math.max(1, n / 1000);
+        final Random random = new Random(0);
+
+        final int[] component = new int[n], bound = new int[n], out = new int[n];
+        final int[] eccOfComponent = new int[numComponents];
+        for (int v = 0; v < n; v++) {
+            component[v] = random.nextInt(numComponents);
+            bound[v] = 20 + random.nextInt(40);
+        }
+        for (int c = 0; c < numComponents; c++) {
+            eccOfComponent[c] = random.nextInt(20);
+        }
+        // as after a pivot BFS: the distances are small, and only a few bounds improve
+        final int[] dist = new int[n];
+        for (int v = 0; v < n; v++) {
+            dist[v] = 30 + random.nextInt(20);
+        }
+
+        System.out.println("Vector API in use: " + BoundKernels.isVectorized() + ", " + n + " vertices.");
+
+        int checksum = 0;
+        checksum += measure("findImprovedBounds, scalar", repetitions,
+                () -> BoundKernels.scalarFindImprovedBounds(dist, eccOfComponent, component, bound, out));
+        checksum += measure("findImprovedBounds", repetitions,
+                () -> BoundKernels.findImprovedBounds(dist, eccOfComponent, component, bound, out));
+
+        // printed so that the calls cannot be optimized away
+        System.out.println("(checksum " + checksum + ")");
+    }
+
+    /**
+     * Runs a kernel <var>repetitions</var> times to let the JIT compile it, and then
+     * <var>repetitions</var> more times, printing the median time of the latter in milliseconds.
+     *
+     * @return the sum of the results of the kernel
+     */
+    private static int measure(String kernel, int repetitions, IntSupplier call) {
+        int checksum = 0;
+        for (int r = 0; r < repetitions; r++) {
+            checksum += call.getAsInt();
+        }
+        final long[] times = new long[repetitions];
+        for (int r = 0; r < repetitions; r++) {
+            final long start = System.nanoTime();
+            checksum += call.getAsInt();
+            times[r] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        System.out.printf("%-30s %10.2f ms per iteration%n", kernel, times[repetitions / 2] / 1e6);
+        return checksum;
+    }
+}
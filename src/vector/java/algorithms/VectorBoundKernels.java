@@ -0,0 +1,46 @@
+package algorithms;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The SIMD implementation of {@link BoundKernels}. This class is only compiled in the <code>vector</code>
+ * Maven profile, and only loaded when the <code>jdk.incubator.vector</code> module is present.
+ */
+final class VectorBoundKernels implements BoundKernels.Kernels {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    VectorBoundKernels() {
+    }
+
+    /**
+     * @see BoundKernels#findImprovedBounds(int[], int[], int[], int[], int[])
+     */
+    @Override
+    public int findImprovedBounds(final int[] dist, final int[] eccOfComponent, final int[] component,
+                                  final int[] bound, final int[] out) {
+        final int n = dist.length;
+        final int upper = SPECIES.loopBound(n);
+        int count = 0;
+        int v = 0;
+        for (; v < upper; v += SPECIES.length()) {
+            final IntVector newBound = IntVector.fromArray(SPECIES, dist, v)
+                    .add(IntVector.fromArray(SPECIES, eccOfComponent, 0, component, v));
+            final VectorMask<Integer> improved = newBound.lt(IntVector.fromArray(SPECIES, bound, v));
+            // most vertices do not improve, so the lanes are only looked at one by one when some do
+            if (improved.anyTrue()) {
+                for (long lanes = improved.toLong(); lanes != 0; lanes &= lanes - 1) {
+                    out[count++] = v + Long.numberOfTrailingZeros(lanes);
+                }
+            }
+        }
+        for (; v < n; v++) {
+            if (dist[v] + eccOfComponent[component[v]] < bound[v]) {
+                out[count++] = v;
+            }
+        }
+        return count;
+    }
+}